@@ -0,0 +1,59 @@
+package com.jps.libraryapi.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.jps.libraryapi.LibraryApiApplication;
+import com.jps.libraryapi.model.entity.Book;
+
+/**
+ * Sobe a aplicação inteira (H2 embarcado, porta aleatória) uma vez por fork, para os benchmarks
+ * que passam pelo Spring. Subclasses podem acrescentar argumentos, como perfis ou propriedades.
+ */
+@State(Scope.Benchmark)
+public class ApplicationState {
+
+	public ConfigurableApplicationContext context;
+	
+	@Setup(Level.Trial)
+	public void start() {
+		List<String> args = new ArrayList<>();
+		args.add("--server.port=0");
+		args.add("--spring.main.banner-mode=off");
+		args.add("--logging.level.root=WARN");
+		args.addAll(arguments());
+		context = new SpringApplicationBuilder(LibraryApiApplication.class)
+				.registerShutdownHook(false)
+				.run(args.toArray(new String[0]));
+	}
+	
+	protected List<String> arguments() {
+		return new ArrayList<>();
+	}
+	
+	public <T> T bean(Class<T> type) {
+		return context.getBean(type);
+	}
+	
+	@TearDown(Level.Trial)
+	public void stop() {
+		context.close();
+	}
+	
+	public static List<Book> books(String prefix, int count) {
+		List<Book> books = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			books.add(Book.builder().title("Titulo " + i).author("Autor " + (i % 100)).isbn(prefix + "-" + i).build());
+		}
+		return books;
+	}
+	
+}
@@ -0,0 +1,125 @@
+package com.jps.libraryapi.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import com.jps.libraryapi.model.entity.Book;
+import com.jps.libraryapi.model.repository.BookRepository;
+import com.jps.libraryapi.service.BookService;
+
+/**
+ * Ida e volta completa pelo MockMvc (filtros, conversão, validação, serviço, H2 e Jackson)
+ * para cada endpoint do BookController.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookEndpointBenchmark {
+
+	static final String BOOK_API = "/api/books";
+	
+	MockMvc mvc;
+	BookRepository repository;
+	AtomicLong isbns = new AtomicLong();
+	Long bookId;
+	
+	@State(Scope.Thread)
+	public static class DeletableBook {
+		Long id;
+		
+		@Setup(Level.Invocation)
+		public void create(ApplicationState application) {
+			id = application.bean(BookRepository.class)
+					.save(Book.builder().title("Apagar").author("Janaina").isbn("del-" + System.nanoTime()).build())
+					.getId();
+		}
+	}
+	
+	@Setup(Level.Trial)
+	public void setUp(ApplicationState application) {
+		mvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) application.context).build();
+		repository = application.bean(BookRepository.class);
+		application.bean(BookService.class).saveAll(ApplicationState.books("endpoint", 1000));
+		bookId = repository.findAll().get(0).getId();
+	}
+	
+	@Benchmark
+	public MvcResult create() throws Exception {
+		String json = "{\"title\":\"Maravilha\",\"author\":\"Janaina\",\"isbn\":\"new-" + isbns.incrementAndGet() + "\"}";
+		return mvc.perform(MockMvcRequestBuilders.post(BOOK_API)
+				.contentType(MediaType.APPLICATION_JSON)
+				.accept(MediaType.APPLICATION_JSON)
+				.content(json)).andReturn();
+	}
+	
+	@Benchmark
+	public MvcResult get() throws Exception {
+		return mvc.perform(MockMvcRequestBuilders.get(BOOK_API + "/" + bookId)
+				.accept(MediaType.APPLICATION_JSON)).andReturn();
+	}
+	
+	@Benchmark
+	public MvcResult update() throws Exception {
+		return mvc.perform(MockMvcRequestBuilders.put(BOOK_API + "/" + bookId)
+				.contentType(MediaType.APPLICATION_JSON)
+				.accept(MediaType.APPLICATION_JSON)
+				.content("{\"title\":\"Novo titulo\",\"author\":\"Janaina\",\"isbn\":\"endpoint-0\"}")).andReturn();
+	}
+	
+	@Benchmark
+	public MvcResult delete(DeletableBook book) throws Exception {
+		return mvc.perform(MockMvcRequestBuilders.delete(BOOK_API + "/" + book.id)).andReturn();
+	}
+	
+	@Benchmark
+	public MvcResult find() throws Exception {
+		return mvc.perform(MockMvcRequestBuilders.get(BOOK_API + "?title=titulo 1&page=0&size=20")
+				.accept(MediaType.APPLICATION_JSON)).andReturn();
+	}
+	
+	@Benchmark
+	public MvcResult findAfterCursor() throws Exception {
+		return mvc.perform(MockMvcRequestBuilders.get(BOOK_API + "/cursor?title=titulo 1&size=20")
+				.accept(MediaType.APPLICATION_JSON)).andReturn();
+	}
+	
+	@Benchmark
+	public MvcResult createBatch() throws Exception {
+		StringBuilder json = new StringBuilder("[");
+		for (int i = 0; i < 100; i++) {
+			json.append(i == 0 ? "" : ",")
+				.append("{\"title\":\"Lote\",\"author\":\"Janaina\",\"isbn\":\"batch-").append(isbns.incrementAndGet()).append("\"}");
+		}
+		return mvc.perform(MockMvcRequestBuilders.post(BOOK_API + "/batch")
+				.contentType(MediaType.APPLICATION_JSON)
+				.accept(MediaType.APPLICATION_JSON)
+				.content(json.append("]").toString())).andReturn();
+	}
+	
+	@Benchmark
+	public MvcResult export() throws Exception {
+		return mvc.perform(MockMvcRequestBuilders.get(BOOK_API + "/export?format=ndjson&author=autor 1")).andReturn();
+	}
+	
+}
@@ -0,0 +1,64 @@
+package com.jps.libraryapi.benchmark;
+
+import java.lang.reflect.Proxy;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import com.jps.libraryapi.model.entity.Book;
+import com.jps.libraryapi.model.repository.BookRepository;
+import com.jps.libraryapi.service.BookService;
+import com.jps.libraryapi.service.impl.BookServiceImpl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Custo de BookServiceImpl.find fora do banco: montagem do Example e do ExampleMatcher
+ * com um repositório que devolve sempre a mesma página.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookFindBenchmark {
+
+	BookService service;
+	Book filter = Book.builder().title("aventuras").author("janaina").build();
+	PageRequest pageRequest = PageRequest.of(0, 20);
+	
+	@Setup
+	public void setUp() {
+		Page<Book> page = new PageImpl<>(ApplicationState.books("find", 20), pageRequest, 20);
+		BookRepository repository = (BookRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[] { BookRepository.class }, (proxy, method, args) -> {
+					switch (method.getName()) {
+					case "findPage": return page.getContent();
+					case "count": return page.getTotalElements();
+					default: return page;
+					}
+				});
+		service = new BookServiceImpl(repository, event -> { }, Optional.empty(), Optional.empty(), Optional.empty(), new NoOpCacheManager(), new SimpleMeterRegistry(), false);
+	}
+	
+	@Benchmark
+	public Page<Book> exampleQueryConstruction() {
+		return service.find(filter, pageRequest);
+	}
+	
+}
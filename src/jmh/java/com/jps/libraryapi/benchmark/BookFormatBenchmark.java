@@ -0,0 +1,113 @@
+package com.jps.libraryapi.benchmark;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.jps.libraryapi.api.dto.BookDTO;
+
+/**
+ * Página de livros em JSON, CBOR e Smile: tempo para escrever a página e ler o conteúdo de volta,
+ * e o tamanho em bytes de cada formato (contadores pageBytes e contentBytes).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookFormatBenchmark {
+
+	private static final TypeReference<List<BookDTO>> BOOKS = new TypeReference<List<BookDTO>>() { };
+
+	@Param({ "json", "cbor", "smile" })
+	String format;
+
+	@Param({ "20", "1000" })
+	int pageSize;
+
+	ObjectMapper objectMapper;
+	Page<BookDTO> page;
+	byte[] content;
+
+	@Setup
+	public void setUp() throws IOException {
+		Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json();
+		if( "cbor".equals(format) ) {
+			builder.factory(new CBORFactory());
+		} else if( "smile".equals(format) ) {
+			builder.factory(new SmileFactory());
+		}
+		objectMapper = builder.build();
+
+		List<BookDTO> books = new ArrayList<>();
+		for (int i = 0; i < pageSize; i++) {
+			books.add(BookDTO.builder().id(i).title("Titulo " + i).author("Autor " + i).isbn("isbn-" + i).build());
+		}
+		page = new PageImpl<>(books, PageRequest.of(0, pageSize), 10_000);
+		content = objectMapper.writeValueAsBytes(books);
+	}
+
+	/**
+	 * Tamanhos em bytes como contadores do JMH. Contadores EVENTS são somados entre as iterações de
+	 * medição, então cada operação atribui tamanho / iterações e a soma reportada é o tamanho.
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class Sizes {
+		public double pageBytes;
+		public double contentBytes;
+		private int iterations;
+		
+		@Setup(Level.Trial)
+		public void setUp(BenchmarkParams params) {
+			iterations = params.getMeasurement().getCount();
+		}
+		
+		void page(int bytes) {
+			pageBytes = (double) bytes / iterations;
+		}
+		
+		void content(int bytes) {
+			contentBytes = (double) bytes / iterations;
+		}
+	}
+
+	@Benchmark
+	public byte[] writePage(Sizes sizes) throws IOException {
+		byte[] bytes = objectMapper.writeValueAsBytes(page);
+		sizes.page(bytes.length);
+		return bytes;
+	}
+
+	@Benchmark
+	public List<BookDTO> readContent(Sizes sizes) throws IOException {
+		sizes.content(content.length);
+		return objectMapper.readValue(content, BOOKS);
+	}
+
+}
@@ -0,0 +1,77 @@
+package com.jps.libraryapi.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.jps.libraryapi.model.entity.Book;
+import com.jps.libraryapi.model.repository.BookRepository;
+import com.jps.libraryapi.service.BookBatchResult;
+import com.jps.libraryapi.service.BookService;
+
+/**
+ * Cadastros por segundo no H2 embarcado conforme o tamanho do bloco de ids (library.book-id.allocation-size):
+ * com 1, cada insert faz a sua chamada à sequência.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookIdAllocationBenchmark {
+
+	static final int BATCH = 1000;
+	
+	@State(Scope.Benchmark)
+	public static class AllocationState extends ApplicationState {
+		
+		@Param({ "1", "50", "500" })
+		public int allocationSize;
+		
+		BookService service;
+		BookRepository repository;
+		AtomicLong batches = new AtomicLong();
+		
+		@Override
+		protected List<String> arguments() {
+			return new ArrayList<>(Arrays.asList("--library.book-id.allocation-size=" + allocationSize));
+		}
+		
+		@Setup(Level.Iteration)
+		public void clean() {
+			if( service == null ) {
+				service = bean(BookService.class);
+				repository = bean(BookRepository.class);
+			}
+			repository.deleteAllInBatch();
+		}
+	}
+	
+	@Benchmark
+	public Book save(AllocationState state) {
+		return state.service.save(Book.builder().title("Titulo").author("Autor").isbn("one-" + state.batches.incrementAndGet()).build());
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public List<BookBatchResult> saveAll(AllocationState state) {
+		return state.service.saveAll(ApplicationState.books("batch-" + state.batches.incrementAndGet(), BATCH));
+	}
+	
+}
@@ -0,0 +1,92 @@
+package com.jps.libraryapi.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jps.libraryapi.api.dto.BookDTO;
+import com.jps.libraryapi.api.mapper.BookMapper;
+import com.jps.libraryapi.api.resouce.BookPageWriter;
+import com.jps.libraryapi.model.entity.Book;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookJsonBenchmark {
+
+	@Param({ "20", "100", "1000" })
+	int pageSize;
+	
+	ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+	BookDTO book;
+	Page<BookDTO> page;
+	Page<Book> books;
+	BookPageWriter pageWriter = new BookPageWriter(objectMapper.getFactory());
+	// faz o papel do corpo da resposta, que as duas versões recebem já alocado
+	ByteArrayOutputStream out = new ByteArrayOutputStream(1 << 20);
+	
+	@Setup
+	public void setUp() {
+		book = BookDTO.builder().id(10).title("As aventuras").author("Janaina").isbn("123").build();
+		List<BookDTO> content = new ArrayList<>();
+		List<Book> entities = new ArrayList<>();
+		for (int i = 0; i < pageSize; i++) {
+			content.add(BookDTO.builder().id(i).title("Titulo " + i).author("Autor " + i).isbn("isbn-" + i).build());
+			entities.add(Book.builder().id((long) i).title("Titulo " + i).author("Autor " + i).isbn("isbn-" + i).build());
+		}
+		page = new PageImpl<>(content, PageRequest.of(0, pageSize), 10_000);
+		books = new PageImpl<>(entities, PageRequest.of(0, pageSize), 10_000);
+	}
+	
+	@Benchmark
+	public byte[] serializeBook() throws JsonProcessingException {
+		return objectMapper.writeValueAsBytes(book);
+	}
+	
+	@Benchmark
+	public byte[] serializePage() throws JsonProcessingException {
+		return objectMapper.writeValueAsBytes(page);
+	}
+	
+	// o que GET /api/books faz: mapear para a lista de DTOs e serializar o PageImpl
+	@Benchmark
+	public int mapAndSerializePage() throws IOException {
+		List<BookDTO> content = books.getContent().stream().map(BookMapper::toDto).collect(Collectors.toList());
+		out.reset();
+		objectMapper.writeValue(out, new PageImpl<>(content, books.getPageable(), books.getTotalElements()));
+		return out.size();
+	}
+	
+	// o que GET /api/books/search?total=true escreve
+	@Benchmark
+	public int writeSearchEnvelope() throws IOException {
+		out.reset();
+		pageWriter.write(books, books.getTotalElements(), out);
+		return out.size();
+	}
+	
+}
@@ -0,0 +1,52 @@
+package com.jps.libraryapi.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.jps.libraryapi.api.dto.BookDTO;
+import com.jps.libraryapi.api.mapper.BookMapper;
+import com.jps.libraryapi.model.entity.Book;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookMappingBenchmark {
+
+	ModelMapper modelMapper = new ModelMapper();
+	Book book = Book.builder().id(10l).title("As aventuras").author("Janaina").isbn("123").build();
+	BookDTO dto = BookDTO.builder().id(10).title("As aventuras").author("Janaina").isbn("123").build();
+	
+	@Benchmark
+	public BookDTO modelMapperToDto() {
+		return modelMapper.map(book, BookDTO.class);
+	}
+	
+	@Benchmark
+	public Book modelMapperToEntity() {
+		return modelMapper.map(dto, Book.class);
+	}
+	
+	@Benchmark
+	public BookDTO bookMapperToDto() {
+		return BookMapper.toDto(book);
+	}
+	
+	@Benchmark
+	public Book bookMapperToEntity() {
+		return BookMapper.toEntity(dto);
+	}
+	
+}
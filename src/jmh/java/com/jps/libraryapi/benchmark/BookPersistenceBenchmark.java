@@ -0,0 +1,68 @@
+package com.jps.libraryapi.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.jps.libraryapi.model.entity.Book;
+import com.jps.libraryapi.model.repository.BookRepository;
+import com.jps.libraryapi.service.BookBatchResult;
+import com.jps.libraryapi.service.BookService;
+
+/**
+ * Inserção de livros no H2 embarcado, em linhas por segundo: um a um (existsByIsbn + save)
+ * contra o caminho em lote de BookService.saveAll.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookPersistenceBenchmark {
+
+	static final int BATCH = 1000;
+	
+	BookService service;
+	BookRepository repository;
+	AtomicLong batches = new AtomicLong();
+	
+	@Setup(Level.Trial)
+	public void setUp(ApplicationState application) {
+		service = application.bean(BookService.class);
+		repository = application.bean(BookRepository.class);
+	}
+	
+	@Setup(Level.Iteration)
+	public void clean() {
+		repository.deleteAllInBatch();
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public void saveOneByOne() {
+		for (Book book : ApplicationState.books("one-" + batches.incrementAndGet(), BATCH)) {
+			service.save(book);
+		}
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public List<BookBatchResult> saveAll() {
+		return service.saveAll(ApplicationState.books("batch-" + batches.incrementAndGet(), BATCH));
+	}
+	
+}
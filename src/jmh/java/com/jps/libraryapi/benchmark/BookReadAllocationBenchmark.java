@@ -0,0 +1,93 @@
+package com.jps.libraryapi.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import com.jps.libraryapi.model.entity.Book;
+import com.jps.libraryapi.model.repository.BookRepository;
+import com.jps.libraryapi.service.BookService;
+
+/**
+ * Endpoints de leitura com o cache de livros por id e o cache de consultas desligados, para que
+ * cada requisição chegue ao banco. A métrica a comparar é gc.alloc.rate.norm (bytes por requisição).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookReadAllocationBenchmark {
+
+	static final String BOOK_API = "/api/books";
+	
+	@State(Scope.Benchmark)
+	public static class UncachedState extends ApplicationState {
+		
+		MockMvc mvc;
+		String ids;
+		Long bookId;
+		
+		@Override
+		protected List<String> arguments() {
+			return new ArrayList<>(Arrays.asList("--spring.cache.type=none", "--library.query-cache.enabled=false"));
+		}
+		
+		@Setup(Level.Trial)
+		public void load() {
+			mvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context).build();
+			bean(BookService.class).saveAll(ApplicationState.books("read", 1000));
+			List<Book> books = bean(BookRepository.class).findAll();
+			bookId = books.get(0).getId();
+			StringBuilder ids = new StringBuilder();
+			for (int i = 0; i < 50; i++) {
+				ids.append(i == 0 ? "" : ",").append(books.get(i * 20).getId());
+			}
+			this.ids = ids.toString();
+		}
+	}
+	
+	@Benchmark
+	public MvcResult get(UncachedState state) throws Exception {
+		return state.mvc.perform(MockMvcRequestBuilders.get(BOOK_API + "/" + state.bookId)
+				.accept(MediaType.APPLICATION_JSON)).andReturn();
+	}
+	
+	@Benchmark
+	public MvcResult find(UncachedState state) throws Exception {
+		return state.mvc.perform(MockMvcRequestBuilders.get(BOOK_API + "?author=autor 1&page=0&size=20")
+				.accept(MediaType.APPLICATION_JSON)).andReturn();
+	}
+	
+	@Benchmark
+	public MvcResult findAfterCursor(UncachedState state) throws Exception {
+		return state.mvc.perform(MockMvcRequestBuilders.get(BOOK_API + "/cursor?author=autor 1&size=20")
+				.accept(MediaType.APPLICATION_JSON)).andReturn();
+	}
+	
+	@Benchmark
+	public MvcResult getAllById(UncachedState state) throws Exception {
+		return state.mvc.perform(MockMvcRequestBuilders.get(BOOK_API + "?ids=" + state.ids)
+				.accept(MediaType.APPLICATION_JSON)).andReturn();
+	}
+	
+}
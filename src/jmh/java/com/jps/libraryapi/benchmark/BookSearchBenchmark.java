@@ -0,0 +1,73 @@
+package com.jps.libraryapi.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.ExampleMatcher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import com.jps.libraryapi.model.entity.Book;
+import com.jps.libraryapi.model.repository.BookRepository;
+import com.jps.libraryapi.service.BookService;
+import com.jps.libraryapi.service.search.BookTrigramIndex;
+
+/**
+ * Busca por trecho de título: consulta Example (like '%x%') no H2 contra o índice de trigramas
+ * seguido do findAllProjectedById da página.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookSearchBenchmark {
+
+	@Param({ "10000", "100000" })
+	int rows;
+	
+	BookRepository repository;
+	BookTrigramIndex index = new BookTrigramIndex();
+	Book filter = Book.builder().title("ulo 1234").build();
+	PageRequest pageRequest = PageRequest.of(0, 20);
+	Example<Book> example = Example.of(filter, ExampleMatcher.matching()
+			.withIgnoreCase()
+			.withIgnoreNullValues()
+			.withStringMatcher(ExampleMatcher.StringMatcher.CONTAINING));
+	
+	@Setup(Level.Trial)
+	public void setUp(ApplicationState application) {
+		repository = application.bean(BookRepository.class);
+		BookService service = application.bean(BookService.class);
+		for (int from = 0; from < rows; from += 10_000) {
+			service.saveAll(ApplicationState.books("search-" + from, 10_000));
+		}
+		repository.findAll().forEach(index::put);
+	}
+	
+	@Benchmark
+	public Page<Book> exampleQuery() {
+		return repository.findAll(example, pageRequest);
+	}
+	
+	@Benchmark
+	public List<Book> trigramIndex() {
+		Page<Long> ids = index.search(filter, pageRequest);
+		return repository.findAllProjectedById(ids.getContent());
+	}
+	
+}
@@ -0,0 +1,98 @@
+package com.jps.libraryapi.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.jps.libraryapi.model.repository.BookRepository;
+
+import reactor.core.publisher.Flux;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * Capacidade sob rajadas de requisições simultâneas: servlet (Tomcat + JPA, pool de threads padrão)
+ * contra reactive (Netty + R2DBC). Cada operação dispara {@code concurrency} buscas ao mesmo tempo por
+ * um cliente não bloqueante e espera todas as respostas; o resultado é o tempo da rajada inteira.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookStackLoadBenchmark {
+
+	static final String SEARCH = "/api/books?author=Autor%201&page=0&size=20";
+	
+	@State(Scope.Benchmark)
+	public static class StackState extends ApplicationState {
+		
+		@Param({ "servlet", "reactive" })
+		public String stack;
+		
+		@Override
+		protected List<String> arguments() {
+			return "reactive".equals(stack)
+					? new ArrayList<>(Arrays.asList("--spring.profiles.active=reactive"))
+					: new ArrayList<>();
+		}
+	}
+	
+	@Param({ "64", "512" })
+	int concurrency;
+	
+	ConnectionProvider connections;
+	HttpClient client;
+	
+	@Setup(Level.Trial)
+	public void setUp(StackState application) {
+		application.bean(BookRepository.class).saveAll(ApplicationState.books("load", 1000));
+		
+		connections = ConnectionProvider.builder("load").maxConnections(concurrency).pendingAcquireMaxCount(-1).build();
+		client = HttpClient.create(connections)
+				.baseUrl("http://localhost:" + application.context.getEnvironment().getProperty("local.server.port"));
+		
+		long failures = burst();
+		if( failures > 0 ) {
+			throw new IllegalStateException(failures + " requisições falharam na pilha " + application.stack);
+		}
+	}
+	
+	@Benchmark
+	public long concurrentSearch() {
+		return burst();
+	}
+	
+	/** Devolve quantas requisições da rajada não responderam 200. */
+	private long burst() {
+		return Flux.range(0, concurrency)
+				.flatMap(i -> client.get().uri(SEARCH)
+						.responseSingle((response, body) -> body.asByteArray().thenReturn(response.status().code()))
+						.defaultIfEmpty(200), concurrency)
+				.filter(status -> status != 200)
+				.count()
+				.block();
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		connections.dispose();
+	}
+	
+}
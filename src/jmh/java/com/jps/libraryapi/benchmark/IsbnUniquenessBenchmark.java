@@ -0,0 +1,101 @@
+package com.jps.libraryapi.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+
+import com.jps.libraryapi.exception.BusinessException;
+import com.jps.libraryapi.model.entity.Book;
+import com.jps.libraryapi.model.repository.BookRepository;
+import com.jps.libraryapi.service.BookService;
+import com.jps.libraryapi.service.impl.BookServiceImpl;
+import com.jps.libraryapi.service.isbn.KnownIsbns;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Cadastros simultâneos no H2 embarcado, em livros por segundo: só o índice único contra a checagem
+ * prévia com lock por ISBN. Um em cada DUPLICATE_EVERY cadastros repete um ISBN já usado.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class IsbnUniquenessBenchmark {
+
+	static final int DUPLICATE_EVERY = 10;
+	
+	BookRepository repository;
+	BookService uniqueIndex;
+	BookService preCheck;
+	AtomicLong sequence = new AtomicLong();
+	
+	// um em cada DUPLICATE_EVERY cadastros viola o índice de propósito; sem isso o Hibernate loga cada um como ERROR
+	@State(Scope.Benchmark)
+	public static class DuplicatesState extends ApplicationState {
+		
+		@Override
+		protected List<String> arguments() {
+			return new ArrayList<>(Arrays.asList(
+					"--logging.level.org.hibernate.engine.jdbc.spi.SqlExceptionHelper=OFF",
+					"--logging.level.org.hibernate.engine.jdbc.batch.internal.BatchingBatch=OFF"));
+		}
+	}
+	
+	@Setup(Level.Trial)
+	public void setUp(DuplicatesState application) {
+		repository = application.bean(BookRepository.class);
+		ApplicationEventPublisher publisher = application.context;
+		Optional<KnownIsbns> knownIsbns = Optional.ofNullable(application.context.getBeanProvider(KnownIsbns.class).getIfAvailable());
+		uniqueIndex = new BookServiceImpl(repository, publisher, Optional.empty(), Optional.empty(), knownIsbns, new NoOpCacheManager(), new SimpleMeterRegistry(), false);
+		preCheck = new BookServiceImpl(repository, publisher, Optional.empty(), Optional.empty(), knownIsbns, new NoOpCacheManager(), new SimpleMeterRegistry(), true);
+	}
+	
+	@Setup(Level.Iteration)
+	public void clean() {
+		repository.deleteAllInBatch();
+	}
+	
+	@Benchmark
+	public boolean saveWithUniqueIndex() {
+		return save(uniqueIndex);
+	}
+	
+	@Benchmark
+	public boolean saveWithPreCheck() {
+		return save(preCheck);
+	}
+	
+	private boolean save(BookService service) {
+		long next = sequence.incrementAndGet();
+		long isbn = next % DUPLICATE_EVERY == 0 ? next - 1 : next;
+		try {
+			service.save(Book.builder().title("Titulo").author("Autor").isbn("u-" + isbn).build());
+			return true;
+		} catch (BusinessException e) {
+			return false;
+		}
+	}
+	
+}
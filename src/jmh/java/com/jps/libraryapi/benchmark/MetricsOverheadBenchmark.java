@@ -0,0 +1,91 @@
+package com.jps.libraryapi.benchmark;
+
+import java.lang.reflect.Proxy;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import com.jps.libraryapi.metrics.LibraryMetricsAspect;
+import com.jps.libraryapi.model.entity.Book;
+import com.jps.libraryapi.model.repository.BookRepository;
+import com.jps.libraryapi.service.BookService;
+import com.jps.libraryapi.service.impl.BookServiceImpl;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Custo da instrumentação: o mesmo BookService.find sem métricas e com o LibraryMetricsAspect
+ * cronometrando serviço e repositório, com os percentis configurados em application.properties.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetricsOverheadBenchmark {
+
+	BookService plain;
+	BookService timed;
+	Book filter = Book.builder().title("aventuras").build();
+	PageRequest pageRequest = PageRequest.of(0, 20);
+	
+	@Setup
+	public void setUp() {
+		Page<Book> page = new PageImpl<>(ApplicationState.books("metrics", 20), pageRequest, 20);
+		BookRepository repository = (BookRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[] { BookRepository.class }, (proxy, method, args) -> {
+					switch (method.getName()) {
+					case "findPage": return page.getContent();
+					case "count": return page.getTotalElements();
+					default: return page;
+					}
+				});
+		plain = new BookServiceImpl(repository, event -> { }, Optional.empty(), Optional.empty(), Optional.empty(), new NoOpCacheManager(), new SimpleMeterRegistry(), false);
+		
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		registry.config().meterFilter(new MeterFilter() {
+			@Override
+			public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+				return DistributionStatisticConfig.builder().percentilesHistogram(true).build().merge(config);
+			}
+		});
+		LibraryMetricsAspect aspect = new LibraryMetricsAspect(registry);
+		
+		AspectJProxyFactory repositoryFactory = new AspectJProxyFactory(repository);
+		repositoryFactory.addAspect(aspect);
+		AspectJProxyFactory serviceFactory = new AspectJProxyFactory(
+				new BookServiceImpl(repositoryFactory.getProxy(), event -> { }, Optional.empty(), Optional.empty(), Optional.empty(), new NoOpCacheManager(), new SimpleMeterRegistry(), false));
+		serviceFactory.addAspect(aspect);
+		timed = serviceFactory.getProxy();
+	}
+	
+	@Benchmark
+	public Page<Book> withoutMetrics() {
+		return plain.find(filter, pageRequest);
+	}
+	
+	@Benchmark
+	public Page<Book> withMetrics() {
+		return timed.find(filter, pageRequest);
+	}
+	
+}
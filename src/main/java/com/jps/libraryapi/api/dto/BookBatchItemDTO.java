@@ -0,0 +1,24 @@
+package com.jps.libraryapi.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookBatchItemDTO {
+
+	private int index;
+	
+	private String status;
+	
+	private int id;
+	
+	private String isbn;
+	
+	private String error;
+	
+}
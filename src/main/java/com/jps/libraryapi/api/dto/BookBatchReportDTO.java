@@ -0,0 +1,22 @@
+package com.jps.libraryapi.api.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookBatchReportDTO {
+
+	private int created;
+	
+	private int rejected;
+	
+	private List<BookBatchItemDTO> items;
+	
+}
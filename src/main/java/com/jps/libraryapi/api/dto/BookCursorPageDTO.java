@@ -0,0 +1,20 @@
+package com.jps.libraryapi.api.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookCursorPageDTO {
+
+	private List<BookDTO> content;
+	
+	private String next;
+	
+}
@@ -1,6 +1,7 @@
 package com.jps.libraryapi.api.dto;
 
 import javax.validation.constraints.NotEmpty;
+import javax.validation.groups.Default;
 
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -13,12 +14,16 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 public class BookDTO {
 
+	// o PUT só altera título e autor; o isbn enviado é ignorado e por isso não é exigido
+	public interface Update {
+	}
+	
 	private int id;
 	
-	@NotEmpty
+	@NotEmpty(groups = { Default.class, Update.class })
 	private String title;
 	
-	@NotEmpty
+	@NotEmpty(groups = { Default.class, Update.class })
 	private String author;
 	
 	@NotEmpty
@@ -0,0 +1,16 @@
+package com.jps.libraryapi.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookDeleteReportDTO {
+
+	private int deleted;
+	
+}
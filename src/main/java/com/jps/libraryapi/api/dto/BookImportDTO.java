@@ -0,0 +1,37 @@
+package com.jps.libraryapi.api.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookImportDTO {
+
+	private String id;
+	
+	private String status;
+	
+	private long read;
+	
+	private long imported;
+	
+	private long rejected;
+	
+	private long rowsPerSecond;
+	
+	private Instant startedAt;
+	
+	private Instant finishedAt;
+	
+	private String error;
+	
+	private List<BookImportRejectionDTO> rejections;
+	
+}
@@ -0,0 +1,20 @@
+package com.jps.libraryapi.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookImportRejectionDTO {
+
+	private long line;
+	
+	private String isbn;
+	
+	private String reason;
+	
+}
@@ -0,0 +1,21 @@
+package com.jps.libraryapi.api.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookMultiGetDTO {
+
+	// na ordem dos ids pedidos, sem repetições
+	private List<BookDTO> content;
+	
+	private List<Long> missing;
+	
+}
@@ -0,0 +1,23 @@
+package com.jps.libraryapi.api.dto;
+
+import javax.validation.constraints.Pattern;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookPatchDTO {
+
+	// campos ausentes ficam como estão; informados, não podem ser vazios
+	@Pattern(regexp = "(?s).*\\S.*", message = "não deve estar em branco")
+	private String title;
+	
+	@Pattern(regexp = "(?s).*\\S.*", message = "não deve estar em branco")
+	private String author;
+	
+}
@@ -18,7 +18,11 @@ public class ApiErrors {
 	}
 	
 	public ApiErrors(BusinessException ex) {
-		this.errors = Arrays.asList(ex.getMessage());
+		this(ex.getMessage());
+	}
+	
+	public ApiErrors(String message) {
+		this.errors = Arrays.asList(message);
 	}
 	
 	public List<String> getErrors(){
@@ -0,0 +1,40 @@
+package com.jps.libraryapi.api.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public enum BookExportFormat {
+
+	NDJSON("application/x-ndjson", "ndjson"),
+	CSV("text/csv", "csv");
+	
+	private final String contentType;
+	private final String extension;
+	
+	BookExportFormat(String contentType, String extension) {
+		this.contentType = contentType;
+		this.extension = extension;
+	}
+	
+	public String getContentType() {
+		return contentType;
+	}
+	
+	public String getExtension() {
+		return extension;
+	}
+	
+	public BookExportWriter open(OutputStream out) throws IOException {
+		return this == CSV ? new CsvBookExportWriter(out) : new NdjsonBookExportWriter(out);
+	}
+	
+	public static BookExportFormat of(String format) {
+		for (BookExportFormat value : values()) {
+			if( value.extension.equalsIgnoreCase(format) ) {
+				return value;
+			}
+		}
+		throw new IllegalArgumentException("Formato de exportação inválido: " + format);
+	}
+	
+}
@@ -0,0 +1,23 @@
+package com.jps.libraryapi.api.export;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+import com.jps.libraryapi.model.entity.Book;
+
+public abstract class BookExportWriter implements Consumer<Book>, Closeable {
+
+	@Override
+	public void accept(Book book) {
+		try {
+			write(book);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+	
+	protected abstract void write(Book book) throws IOException;
+	
+}
@@ -0,0 +1,52 @@
+package com.jps.libraryapi.api.export;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import com.jps.libraryapi.api.mapper.BookMapper;
+import com.jps.libraryapi.model.entity.Book;
+
+public class CsvBookExportWriter extends BookExportWriter {
+
+	private final Writer writer;
+	
+	public CsvBookExportWriter(OutputStream out) throws IOException {
+		this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+		this.writer.write("id,title,author,isbn\n");
+	}
+	
+	@Override
+	protected void write(Book book) throws IOException {
+		writer.write(Integer.toString(BookMapper.toDtoId(book.getId())));
+		writer.write(',');
+		writeValue(book.getTitle());
+		writer.write(',');
+		writeValue(book.getAuthor());
+		writer.write(',');
+		writeValue(book.getIsbn());
+		writer.write('\n');
+	}
+	
+	private void writeValue(String value) throws IOException {
+		if( value == null ) {
+			return;
+		}
+		if( value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0 ) {
+			writer.write(value);
+			return;
+		}
+		writer.write('"');
+		writer.write(value.replace("\"", "\"\""));
+		writer.write('"');
+	}
+	
+	@Override
+	public void close() throws IOException {
+		writer.flush();
+	}
+	
+}
@@ -0,0 +1,45 @@
+package com.jps.libraryapi.api.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.jps.libraryapi.api.mapper.BookMapper;
+import com.jps.libraryapi.model.entity.Book;
+
+public class NdjsonBookExportWriter extends BookExportWriter {
+
+	private static final JsonFactory JSON_FACTORY = new JsonFactory();
+	
+	private final JsonGenerator generator;
+	private boolean empty = true;
+	
+	public NdjsonBookExportWriter(OutputStream out) throws IOException {
+		this.generator = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8);
+		// um objeto por linha
+		this.generator.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+	}
+	
+	@Override
+	protected void write(Book book) throws IOException {
+		generator.writeStartObject();
+		generator.writeNumberField("id", BookMapper.toDtoId(book.getId()));
+		generator.writeStringField("title", book.getTitle());
+		generator.writeStringField("author", book.getAuthor());
+		generator.writeStringField("isbn", book.getIsbn());
+		generator.writeEndObject();
+		empty = false;
+	}
+	
+	@Override
+	public void close() throws IOException {
+		if( !empty ) {
+			generator.writeRaw('\n');
+		}
+		generator.flush();
+	}
+	
+}
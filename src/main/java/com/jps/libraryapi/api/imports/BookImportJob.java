@@ -0,0 +1,89 @@
+package com.jps.libraryapi.api.imports;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.jps.libraryapi.api.dto.BookImportDTO;
+import com.jps.libraryapi.api.dto.BookImportRejectionDTO;
+
+public class BookImportJob {
+
+	public enum Status { RUNNING, COMPLETED, FAILED }
+	
+	private final String id = UUID.randomUUID().toString();
+	private final Instant startedAt = Instant.now();
+	private final int maxRejections;
+	private final AtomicLong read = new AtomicLong();
+	private final AtomicLong imported = new AtomicLong();
+	private final AtomicLong rejected = new AtomicLong();
+	private final List<BookImportRejectionDTO> rejections = new ArrayList<>();
+	private volatile Status status = Status.RUNNING;
+	private volatile Instant finishedAt;
+	private volatile String error;
+	
+	public BookImportJob(int maxRejections) {
+		this.maxRejections = maxRejections;
+	}
+	
+	public String getId() {
+		return id;
+	}
+	
+	public Status getStatus() {
+		return status;
+	}
+	
+	void rowRead() {
+		read.incrementAndGet();
+	}
+	
+	void imported(int count) {
+		imported.addAndGet(count);
+	}
+	
+	void reject(long line, String isbn, String reason) {
+		rejected.incrementAndGet();
+		synchronized (rejections) {
+			if( rejections.size() < maxRejections ) {
+				rejections.add(new BookImportRejectionDTO(line, isbn, reason));
+			}
+		}
+	}
+	
+	void complete() {
+		finishedAt = Instant.now();
+		status = Status.COMPLETED;
+	}
+	
+	void fail(String error) {
+		this.error = error;
+		finishedAt = Instant.now();
+		status = Status.FAILED;
+	}
+	
+	public BookImportDTO toDTO() {
+		Instant end = finishedAt == null ? Instant.now() : finishedAt;
+		long millis = Math.max(1, Duration.between(startedAt, end).toMillis());
+		List<BookImportRejectionDTO> rejectionsCopy;
+		synchronized (rejections) {
+			rejectionsCopy = new ArrayList<>(rejections);
+		}
+		return BookImportDTO.builder()
+				.id(id)
+				.status(status.name())
+				.read(read.get())
+				.imported(imported.get())
+				.rejected(rejected.get())
+				.rowsPerSecond(read.get() * 1000 / millis)
+				.startedAt(startedAt)
+				.finishedAt(finishedAt)
+				.error(error)
+				.rejections(rejectionsCopy)
+				.build();
+	}
+	
+}
@@ -0,0 +1,59 @@
+package com.jps.libraryapi.api.imports;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class BookImportRegistry {
+
+	private final Map<String, BookImportJob> jobs = new ConcurrentHashMap<>();
+	private final ConcurrentLinkedDeque<String> order = new ConcurrentLinkedDeque<>();
+	private final int retained;
+	
+	public BookImportRegistry(@Value("${library.import.retained-jobs:50}") int retained) {
+		this.retained = retained;
+	}
+	
+	public void register(BookImportJob job) {
+		jobs.put(job.getId(), job);
+		order.addFirst(job.getId());
+		evictFinished();
+	}
+	
+	public Optional<BookImportJob> get(String id) {
+		return Optional.ofNullable(jobs.get(id));
+	}
+	
+	public List<BookImportJob> list() {
+		List<BookImportJob> result = new ArrayList<>();
+		for (String id : order) {
+			BookImportJob job = jobs.get(id);
+			if( job != null ) {
+				result.add(job);
+			}
+		}
+		return result;
+	}
+	
+	// mantém só as últimas importações; as que ainda estão rodando nunca são descartadas
+	private void evictFinished() {
+		int count = 0;
+		for (Iterator<String> it = order.iterator(); it.hasNext();) {
+			String id = it.next();
+			BookImportJob job = jobs.get(id);
+			if( ++count > retained && job != null && job.getStatus() != BookImportJob.Status.RUNNING ) {
+				jobs.remove(id);
+				it.remove();
+			}
+		}
+	}
+	
+}
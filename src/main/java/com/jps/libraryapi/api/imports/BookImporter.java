@@ -0,0 +1,181 @@
+package com.jps.libraryapi.api.imports;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import javax.annotation.PreDestroy;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.jps.libraryapi.api.dto.BookDTO;
+import com.jps.libraryapi.api.mapper.BookMapper;
+import com.jps.libraryapi.model.entity.Book;
+import com.jps.libraryapi.service.BookBatchResult;
+import com.jps.libraryapi.service.BookService;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Component
+public class BookImporter {
+
+	private final BookService service;
+	private final Validator validator;
+	private final BookImportRegistry registry;
+	private final int chunkSize;
+	private final int maxRejections;
+	// fila limitada: com todas as threads ocupadas e a fila cheia, a importação é recusada
+	private final ThreadPoolExecutor executor;
+	
+	public BookImporter(BookService service, Validator validator, BookImportRegistry registry,
+			@Value("${library.import.chunk-size:1000}") int chunkSize,
+			@Value("${library.import.max-rejections:1000}") int maxRejections,
+			@Value("${library.import.threads:2}") int threads,
+			@Value("${library.import.queue-capacity:10}") int queueCapacity) {
+		this.service = service;
+		this.validator = validator;
+		this.registry = registry;
+		this.chunkSize = chunkSize;
+		this.maxRejections = maxRejections;
+		this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(queueCapacity), threadFactory());
+	}
+	
+	private static ThreadFactory threadFactory() {
+		AtomicInteger count = new AtomicInteger();
+		return runnable -> {
+			Thread thread = new Thread(runnable, "book-import-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+	
+	/**
+	 * Registra o job e importa o corpo numa thread das importações, lendo direto do stream: cada lote é
+	 * gravado assim que enche e, enquanto isso, o corpo não é lido, e o cliente é contido pelo controle
+	 * de fluxo do TCP. Nada é guardado em disco. Formato desconhecido ou cabeçalho inválido falham o job
+	 * aqui mesmo, com IllegalArgumentException; sem vaga no executor, com {@link RejectedExecutionException}.
+	 * onFinish recebe o job ao fim da importação, concluída ou não.
+	 */
+	public BookImportJob start(String format, InputStream body, Consumer<BookImportJob> onFinish) throws IOException {
+		BookImportJob job = new BookImportJob(maxRejections);
+		registry.register(job);
+		BookRowReader reader;
+		try {
+			reader = BookRowReader.open(format, body);
+		} catch (IllegalArgumentException e) {
+			job.fail(e.getMessage());
+			throw e;
+		}
+		try {
+			executor.execute(() -> {
+				try {
+					run(job, reader);
+				} finally {
+					close(job, reader);
+					onFinish.accept(job);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			job.fail("Importações demais em andamento");
+			throw e;
+		}
+		return job;
+	}
+	
+	private static void close(BookImportJob job, BookRowReader reader) {
+		try {
+			reader.close();
+		} catch (IOException e) {
+			log.warn("Importacao {}: erro ao fechar o arquivo", job.getId(), e);
+		}
+	}
+	
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+	
+	/**
+	 * Lê o arquivo sob demanda e grava em lotes de chunkSize, cada um na sua própria transação
+	 * ({@link BookService#saveAll}). Só um lote fica em memória, qualquer que seja o tamanho do arquivo.
+	 */
+	public BookImportJob run(BookRowReader reader) {
+		BookImportJob job = new BookImportJob(maxRejections);
+		registry.register(job);
+		run(job, reader);
+		return job;
+	}
+	
+	private void run(BookImportJob job, BookRowReader reader) {
+		List<Book> chunk = new ArrayList<>(chunkSize);
+		List<Long> lines = new ArrayList<>(chunkSize);
+		try {
+			BookDTO dto;
+			while( (dto = next(job, reader)) != null ) {
+				job.rowRead();
+				Set<ConstraintViolation<BookDTO>> violations = validator.validate(dto);
+				if( !violations.isEmpty() ) {
+					job.reject(reader.getLine(), dto.getIsbn(), violations.stream()
+							.map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+							.collect(Collectors.joining(", ")));
+					continue;
+				}
+				chunk.add(BookMapper.toEntity(dto));
+				lines.add(reader.getLine());
+				if( chunk.size() == chunkSize ) {
+					commit(job, chunk, lines);
+				}
+			}
+			commit(job, chunk, lines);
+			job.complete();
+		} catch (IOException | RuntimeException e) {
+			log.warn("Importacao {} interrompida", job.getId(), e);
+			job.fail(e.getMessage());
+		}
+	}
+	
+	// registro ilegível vira rejeição, e a leitura segue no próximo
+	private static BookDTO next(BookImportJob job, BookRowReader reader) throws IOException {
+		while( true ) {
+			try {
+				return reader.next();
+			} catch (BookRowException e) {
+				job.rowRead();
+				job.reject(e.getLine(), null, e.getMessage());
+			}
+		}
+	}
+	
+	private void commit(BookImportJob job, List<Book> chunk, List<Long> lines) {
+		if( chunk.isEmpty() ) {
+			return;
+		}
+		int created = 0;
+		for (BookBatchResult result : service.saveAll(chunk)) {
+			if( result.isCreated() ) {
+				created++;
+			} else {
+				job.reject(lines.get(result.getIndex()), result.getBook().getIsbn(), result.getError());
+			}
+		}
+		job.imported(created);
+		chunk.clear();
+		lines.clear();
+	}
+	
+}
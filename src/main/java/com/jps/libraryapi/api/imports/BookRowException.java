@@ -0,0 +1,24 @@
+package com.jps.libraryapi.api.imports;
+
+import java.io.IOException;
+
+/**
+ * Registro do arquivo que não pôde ser lido como livro. O leitor já passou dele: a importação
+ * registra a rejeição e continua no registro seguinte.
+ */
+public class BookRowException extends IOException {
+
+	private static final long serialVersionUID = 1L;
+	
+	private final long line;
+	
+	public BookRowException(long line, String message) {
+		super(message);
+		this.line = line;
+	}
+	
+	public long getLine() {
+		return line;
+	}
+	
+}
@@ -0,0 +1,32 @@
+package com.jps.libraryapi.api.imports;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.jps.libraryapi.api.dto.BookDTO;
+
+public interface BookRowReader extends Closeable {
+
+	/**
+	 * Lê a próxima linha do arquivo, ou null quando o arquivo acabar. Uma linha ilegível lança
+	 * {@link BookRowException} sem interromper a leitura: a chamada seguinte lê a próxima.
+	 */
+	BookDTO next() throws IOException;
+	
+	/**
+	 * Número da linha (ou registro) do último livro lido, para o relatório de rejeições.
+	 */
+	long getLine();
+	
+	static BookRowReader open(String format, InputStream in) throws IOException {
+		if( "csv".equalsIgnoreCase(format) ) {
+			return new CsvBookRowReader(in);
+		}
+		if( "ndjson".equalsIgnoreCase(format) ) {
+			return new NdjsonBookRowReader(in);
+		}
+		throw new IllegalArgumentException("Formato de importação inválido: " + format);
+	}
+	
+}
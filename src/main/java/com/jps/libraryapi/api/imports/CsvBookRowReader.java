@@ -0,0 +1,116 @@
+package com.jps.libraryapi.api.imports;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import com.jps.libraryapi.api.dto.BookDTO;
+
+public class CsvBookRowReader implements BookRowReader {
+
+	private final BufferedReader reader;
+	private final int titleColumn;
+	private final int authorColumn;
+	private final int isbnColumn;
+	private long line;
+	
+	public CsvBookRowReader(InputStream in) throws IOException {
+		this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+		List<String> header = readRecord();
+		if( header == null ) {
+			header = new ArrayList<>();
+		}
+		this.titleColumn = column(header, "title");
+		this.authorColumn = column(header, "author");
+		this.isbnColumn = column(header, "isbn");
+	}
+	
+	@Override
+	public BookDTO next() throws IOException {
+		List<String> record = readRecord();
+		while( record != null && record.size() == 1 && record.get(0).isEmpty() ) {
+			record = readRecord();
+		}
+		if( record == null ) {
+			return null;
+		}
+		return BookDTO.builder()
+				.title(value(record, titleColumn))
+				.author(value(record, authorColumn))
+				.isbn(value(record, isbnColumn))
+				.build();
+	}
+	
+	@Override
+	public long getLine() {
+		return line;
+	}
+	
+	@Override
+	public void close() throws IOException {
+		reader.close();
+	}
+	
+	private static int column(List<String> header, String name) {
+		for (int i = 0; i < header.size(); i++) {
+			if( header.get(i).trim().toLowerCase(Locale.ROOT).equals(name) ) {
+				return i;
+			}
+		}
+		throw new IllegalArgumentException("Coluna obrigatória ausente no cabeçalho: " + name);
+	}
+	
+	private static String value(List<String> record, int column) {
+		return column < record.size() ? record.get(column) : null;
+	}
+	
+	// lê um registro RFC 4180: campos entre aspas podem conter vírgulas, aspas duplicadas e quebras de linha
+	private List<String> readRecord() throws IOException {
+		int c = reader.read();
+		if( c < 0 ) {
+			return null;
+		}
+		line++;
+		List<String> fields = new ArrayList<>();
+		StringBuilder field = new StringBuilder();
+		boolean quoted = false;
+		
+		while( c >= 0 ) {
+			if( quoted ) {
+				if( c == '"' ) {
+					reader.mark(1);
+					int next = reader.read();
+					if( next == '"' ) {
+						field.append('"');
+					} else {
+						quoted = false;
+						reader.reset();
+					}
+				} else {
+					if( c == '\n' ) {
+						line++;
+					}
+					field.append((char) c);
+				}
+			} else if( c == '"' ) {
+				quoted = true;
+			} else if( c == ',' ) {
+				fields.add(field.toString());
+				field.setLength(0);
+			} else if( c == '\n' ) {
+				break;
+			} else if( c != '\r' ) {
+				field.append((char) c);
+			}
+			c = reader.read();
+		}
+		fields.add(field.toString());
+		return fields;
+	}
+	
+}
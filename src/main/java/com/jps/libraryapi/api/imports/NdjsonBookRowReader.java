@@ -0,0 +1,62 @@
+package com.jps.libraryapi.api.imports;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.jps.libraryapi.api.dto.BookDTO;
+
+public class NdjsonBookRowReader implements BookRowReader {
+
+	private static final ObjectReader READER = new ObjectMapper()
+			.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+			.readerFor(BookDTO.class);
+	
+	private final BufferedReader reader;
+	private long line;
+	
+	public NdjsonBookRowReader(InputStream in) {
+		this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+	}
+	
+	// um livro por linha: a linha que não é um objeto JSON é rejeitada sozinha
+	@Override
+	public BookDTO next() throws IOException {
+		String record;
+		do {
+			record = reader.readLine();
+			if( record == null ) {
+				return null;
+			}
+			line++;
+		} while( record.trim().isEmpty() );
+		
+		BookDTO dto;
+		try {
+			dto = READER.readValue(record);
+		} catch (JsonProcessingException e) {
+			throw new BookRowException(line, "JSON inválido: " + e.getOriginalMessage());
+		}
+		if( dto == null ) {
+			throw new BookRowException(line, "Linha sem livro");
+		}
+		return dto;
+	}
+	
+	@Override
+	public long getLine() {
+		return line;
+	}
+	
+	@Override
+	public void close() throws IOException {
+		reader.close();
+	}
+	
+}
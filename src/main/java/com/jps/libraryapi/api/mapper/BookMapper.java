@@ -0,0 +1,33 @@
+package com.jps.libraryapi.api.mapper;
+
+import com.jps.libraryapi.api.dto.BookDTO;
+import com.jps.libraryapi.model.entity.Book;
+
+public final class BookMapper {
+
+	private BookMapper() {
+	}
+	
+	public static Book toEntity(BookDTO dto) {
+		Book book = new Book();
+		book.setId(toEntityId(dto.getId()));
+		book.setTitle(dto.getTitle());
+		book.setAuthor(dto.getAuthor());
+		book.setIsbn(dto.getIsbn());
+		return book;
+	}
+	
+	public static BookDTO toDto(Book book) {
+		return new BookDTO(toDtoId(book.getId()), book.getTitle(), book.getAuthor(), book.getIsbn());
+	}
+	
+	// o DTO usa 0 para "sem id"; na entidade isso precisa virar null para não entrar nos filtros nem no merge
+	public static Long toEntityId(int id) {
+		return id == 0 ? null : Long.valueOf(id);
+	}
+	
+	public static int toDtoId(Long id) {
+		return id == null ? 0 : Math.toIntExact(id);
+	}
+	
+}
@@ -1,99 +1,330 @@
 package com.jps.libraryapi.api.resouce;
 
+import javax.servlet.http.HttpServletResponse;
+import javax.validation.ConstraintViolation;
 import javax.validation.Valid;
+import javax.validation.Validator;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.StringUtils;
 import org.springframework.validation.BindingResult;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
 
+import com.jps.libraryapi.api.dto.BookBatchItemDTO;
+import com.jps.libraryapi.api.dto.BookBatchReportDTO;
+import com.jps.libraryapi.api.dto.BookCursorPageDTO;
 import com.jps.libraryapi.api.dto.BookDTO;
+import com.jps.libraryapi.api.dto.BookDeleteReportDTO;
+import com.jps.libraryapi.api.dto.BookMultiGetDTO;
+import com.jps.libraryapi.api.dto.BookPatchDTO;
 import com.jps.libraryapi.api.exceptions.ApiErrors;
+import com.jps.libraryapi.api.export.BookExportFormat;
+import com.jps.libraryapi.api.export.BookExportWriter;
+import com.jps.libraryapi.api.mapper.BookMapper;
 import com.jps.libraryapi.exception.BusinessException;
 import com.jps.libraryapi.model.entity.Book;
+import com.jps.libraryapi.model.repository.BookVersion;
+import com.jps.libraryapi.service.BookBatchResult;
 import com.jps.libraryapi.service.BookService;
 
 @RestController
 @RequestMapping("/api/books")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class BookController {
 
+	private static final Pattern STRONG_ETAG = Pattern.compile("\"(\\d+)(?:-[a-z]+)?\"");
+	private static final int MAX_MULTI_GET = 1000;
+
 	private BookService service;
-	private ModelMapper modelMapper;
+	private Validator validator;
 	
-	public BookController(BookService service, ModelMapper modelMapper) {
+	public BookController(BookService service, Validator validator) {
 		this.service = service;
-		this.modelMapper = modelMapper;
+		this.validator = validator;
 	}
 	
 	@PostMapping
 	@ResponseStatus(HttpStatus.CREATED)
 	public BookDTO create( @RequestBody @Valid BookDTO bookDTO ) {
 		
-		Book book = modelMapper.map( bookDTO, Book.class);
+		Book book = BookMapper.toEntity(bookDTO);
 		book = service.save(book);		
-		BookDTO bookR = modelMapper.map( book, BookDTO.class);
+		BookDTO bookR = BookMapper.toDto(book);
 		return bookR;
 	}
 	
+	@PostMapping("batch")
+	public BookBatchReportDTO createBatch( @RequestBody List<BookDTO> bookDTOs ) {
+		
+		List<BookBatchItemDTO> items = new ArrayList<>(bookDTOs.size());
+		List<Book> books = new ArrayList<>(bookDTOs.size());
+		List<Integer> positions = new ArrayList<>(bookDTOs.size());
+		
+		for (int i = 0; i < bookDTOs.size(); i++) {
+			BookDTO dto = bookDTOs.get(i);
+			Set<ConstraintViolation<BookDTO>> violations = validator.validate(dto);
+			if( violations.isEmpty() ) {
+				books.add(BookMapper.toEntity(dto));
+				positions.add(i);
+				items.add(null);
+			} else {
+				String error = violations.stream()
+						.map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+						.collect(Collectors.joining(", "));
+				items.add(BookBatchItemDTO.builder().index(i).status("REJECTED").isbn(dto.getIsbn()).error(error).build());
+			}
+		}
+		
+		for (BookBatchResult result : service.saveAll(books)) {
+			int index = positions.get(result.getIndex());
+			Book book = result.getBook();
+			items.set(index, BookBatchItemDTO.builder()
+					.index(index)
+					.status(result.isCreated() ? "CREATED" : "REJECTED")
+					.id(BookMapper.toDtoId(book.getId()))
+					.isbn(book.getIsbn())
+					.error(result.getError())
+					.build());
+		}
+		
+		int created = (int) items.stream().filter(item -> "CREATED".equals(item.getStatus())).count();
+		return BookBatchReportDTO.builder()
+				.created(created)
+				.rejected(items.size() - created)
+				.items(items)
+				.build();
+	}
+	
 	@GetMapping("{id}")
-	public BookDTO get( @PathVariable Long id) {		
+	public BookDTO get( @PathVariable Long id, WebRequest request ) {
+		// a validação do cache do cliente usa só id/version/lastModified: do livro em cache ou da consulta de versão
+		BookVersion version = service
+					.getVersion(id)
+					.orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+		String variant = BookRepresentation.variant(request.getHeader(HttpHeaders.ACCEPT));
+		if( request.checkNotModified(etag(version.getVersion(), variant), timestamp(version.getLastModified())) ) {
+			return null;
+		}
 		return service
-					.getById(id).map(book -> modelMapper.map( book, BookDTO.class))
+					.getById(id).map(book -> BookMapper.toDto(book))
 					.orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
 	}
 	
 	@DeleteMapping("{id}")
 	@ResponseStatus(HttpStatus.NO_CONTENT)
 	public void delete( @PathVariable Long id) {	
-		Book book = service
-					.getById(id)
-					.orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
-		
-		service.delete(book);		
+		// um único DELETE; nenhuma linha removida quer dizer que o livro não existe
+		if( !service.deleteById(id) ) {
+			throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+		}
+	}
+	
+	@DeleteMapping
+	public BookDeleteReportDTO deleteAll( BookDTO bookDTO, @RequestParam(required = false) List<Long> ids ) {
+		int deleted;
+		if( ids != null ) {
+			deleted = service.deleteAll(ids);
+		} else {
+			Book filter = BookMapper.toEntity(bookDTO);
+			if( filter.getId() == null && !StringUtils.hasText(filter.getTitle())
+					&& !StringUtils.hasText(filter.getAuthor()) && !StringUtils.hasText(filter.getIsbn()) ) {
+				throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Informe ids ou um filtro para deletar");
+			}
+			deleted = service.deleteAll(filter);
+		}
+		return BookDeleteReportDTO.builder().deleted(deleted).build();
 	}
 	
 	@PutMapping("{id}")
-	public BookDTO update( @PathVariable Long id, BookDTO bookDTO) {	
-		return service
+	public ResponseEntity<BookDTO> update( @PathVariable Long id, @RequestBody @Validated(BookDTO.Update.class) BookDTO bookDTO,
+			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+			@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept ) {
+		Book book = service
 					.getById(id)
-					.map( book -> {
-						
-						book.setAuthor(bookDTO.getAuthor());
-						book.setTitle(bookDTO.getTitle());
-						service.update(book);
-						BookDTO bookR = modelMapper.map( book, BookDTO.class);
-						return bookR;
-						
-					})
+					.map( found -> found.toBuilder()
+							.author(bookDTO.getAuthor())
+							.title(bookDTO.getTitle())
+							.build() )
 					.orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
 		
+		// com If-Match, o merge do Hibernate compara a versão informada com a do banco e falha com 412
+		if( ifMatch != null && !"*".equals(ifMatch.trim()) ) {
+			book.setVersion(versionOf(ifMatch));
+		}
+		Book updated = service.update(book);
+		return ResponseEntity.ok()
+				.eTag(etag(updated.getVersion(), BookRepresentation.variant(accept)))
+				.body(BookMapper.toDto(updated));
+	}
+	
+	@PatchMapping("{id}")
+	public ResponseEntity<Void> patch( @PathVariable Long id, @RequestBody @Valid BookPatchDTO patchDTO,
+			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+			@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept ) {
+		if( patchDTO.getTitle() == null && patchDTO.getAuthor() == null ) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Informe ao menos um campo para alterar");
+		}
+		Long version = ifMatch == null || "*".equals(ifMatch.trim()) ? null : versionOf(ifMatch);
+		Book changes = Book.builder().title(patchDTO.getTitle()).author(patchDTO.getAuthor()).build();
 		
-		
-		
+		// a quantidade de linhas alteradas decide entre 204 e 404
+		if( !service.patch(id, version, changes) ) {
+			throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+		}
+		ResponseEntity.HeadersBuilder<?> response = ResponseEntity.noContent();
+		if( version != null ) {
+			response.eTag(etag(version + 1, BookRepresentation.variant(accept)));
+		}
+		return response.build();
 	}
 	
-	public Page<BookDTO> find( BookDTO bookDTO, Pageable pageRequest ){
-        Book filter = modelMapper.map(bookDTO, Book.class);
+	@GetMapping(params = "ids")
+	public BookMultiGetDTO getAll( @RequestParam List<Long> ids ) {
+		return multiGet(ids);
+	}
+	
+	// para listas que não cabem na query string
+	@PostMapping("lookup")
+	public BookMultiGetDTO lookup( @RequestBody List<Long> ids ) {
+		return multiGet(ids);
+	}
+	
+	private BookMultiGetDTO multiGet( List<Long> ids ) {
+		if( ids.size() > MAX_MULTI_GET ) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Informe no máximo " + MAX_MULTI_GET + " ids");
+		}
+		List<Book> books = service.getAllById(ids);
+		Set<Long> found = books.stream().map(Book::getId).collect(Collectors.toSet());
+		return BookMultiGetDTO.builder()
+				.content(books.stream().map(BookMapper::toDto).collect(Collectors.toList()))
+				.missing(ids.stream().filter(id -> !found.contains(id)).distinct().collect(Collectors.toList()))
+				.build();
+	}
+	
+	@GetMapping
+	public Page<BookDTO> find( BookDTO bookDTO, Pageable pageRequest, WebRequest request ){
+        Book filter = BookMapper.toEntity(bookDTO);
         Page<Book> result = service.find(filter, pageRequest);
+        if( request.checkNotModified(pageEtag(result, BookRepresentation.variant(request.getHeader(HttpHeaders.ACCEPT)))) ) {
+            return null;
+        }
         List<BookDTO> list = result.getContent()
                 .stream()
-                .map(entity -> modelMapper.map(entity, BookDTO.class))
+                .map(entity -> BookMapper.toDto(entity))
                 .collect(Collectors.toList());
 
         return new PageImpl<BookDTO>( list, pageRequest, result.getTotalElements() );
     }
 	
+	// busca com envelope enxuto, escrito direto na resposta; a contagem só roda com total=true
+	@GetMapping("search")
+	public void search( BookDTO bookDTO, Pageable pageRequest,
+			@RequestParam(defaultValue = "false") boolean total,
+			@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+			HttpServletResponse response ) throws IOException {
+		Book filter = BookMapper.toEntity(bookDTO);
+		String variant = BookRepresentation.variant(accept);
+		Slice<Book> result;
+		Long totalElements = null;
+		if( total ) {
+			Page<Book> page = service.find(filter, pageRequest);
+			totalElements = page.getTotalElements();
+			result = page;
+		} else {
+			result = service.findSlice(filter, pageRequest);
+		}
+		
+		response.setContentType(BookRepresentation.mediaType(variant).toString());
+		new BookPageWriter(BookRepresentation.factory(variant)).write(result, totalElements, response.getOutputStream());
+	}
+	
+	@GetMapping("cursor")
+	public BookCursorPageDTO findAfter( BookDTO bookDTO,
+			@RequestParam(required = false) String after,
+			@RequestParam(defaultValue = "20") int size ) {
+		BookCursor.checkSize(size);
+		Book filter = BookMapper.toEntity(bookDTO);
+		Slice<Book> result = service.findAfter(filter, BookCursor.decode(after), size);
+		List<BookDTO> list = result.getContent()
+				.stream()
+				.map(BookMapper::toDto)
+				.collect(Collectors.toList());
+		
+		String next = result.hasNext() ? BookCursor.encode(result.getContent().get(result.getNumberOfElements() - 1).getId()) : null;
+		return BookCursorPageDTO.builder().content(list).next(next).build();
+	}
+	
+	@GetMapping("export")
+	public void export( BookDTO bookDTO, @RequestParam(defaultValue = "ndjson") String format,
+			HttpServletResponse response ) throws IOException {
+		BookExportFormat exportFormat;
+		try {
+			exportFormat = BookExportFormat.of(format);
+		} catch (IllegalArgumentException e) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+		}
+		
+		response.setContentType(exportFormat.getContentType());
+		response.setCharacterEncoding("UTF-8");
+		response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=books." + exportFormat.getExtension());
+		try (BookExportWriter writer = exportFormat.open(response.getOutputStream())) {
+			service.export(BookMapper.toEntity(bookDTO), writer);
+		}
+	}
+	
+	// a versão é a mesma em todos os formatos; o sufixo separa as representações binárias da JSON
+	private static String etag(Long version, String variant) {
+		String tag = String.valueOf(version == null ? 0 : version);
+		return "\"" + (variant.isEmpty() ? tag : tag + "-" + variant) + "\"";
+	}
+	
+	private static long timestamp(Instant instant) {
+		return instant == null ? -1 : instant.toEpochMilli();
+	}
+	
+	private static Long versionOf(String ifMatch) {
+		Matcher matcher = STRONG_ETAG.matcher(ifMatch.trim());
+		if( !matcher.matches() ) {
+			throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "If-Match deve ser a ETag devolvida pela API");
+		}
+		return Long.valueOf(matcher.group(1));
+	}
+	
+	// a página muda quando muda o total ou a versão de qualquer livro nela
+	private static String pageEtag(Page<Book> page, String variant) {
+		StringBuilder state = new StringBuilder(variant).append(page.getTotalElements());
+		for (Book book : page.getContent()) {
+			state.append(';').append(book.getId()).append(':').append(book.getVersion());
+		}
+		return "\"" + DigestUtils.md5DigestAsHex(state.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+	}
+	
 	@ExceptionHandler(MethodArgumentNotValidException.class)
 	@ResponseStatus(HttpStatus.BAD_REQUEST)
 	public ApiErrors handleValidationExceptions(MethodArgumentNotValidException ex) {
@@ -107,4 +338,10 @@ public class BookController {
 		return new ApiErrors(ex);
 	}
 	
+	@ExceptionHandler(OptimisticLockingFailureException.class)
+	@ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+	public ApiErrors handleOptimisticLockingExceptions(OptimisticLockingFailureException ex) {
+		return new ApiErrors("Livro alterado por outra requisição");
+	}
+	
 }
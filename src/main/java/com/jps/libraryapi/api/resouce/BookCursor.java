@@ -0,0 +1,40 @@
+package com.jps.libraryapi.api.resouce;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Cursor opaco da paginação por keyset: o id do último livro devolvido, em Base64 url-safe.
+ */
+final class BookCursor {
+
+	static final int MAX_PAGE_SIZE = 1000;
+	
+	private BookCursor() {
+	}
+	
+	static void checkSize(int size) {
+		if( size < 1 || size > MAX_PAGE_SIZE ) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "size deve estar entre 1 e " + MAX_PAGE_SIZE);
+		}
+	}
+	
+	static String encode(Long id) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(id.toString().getBytes(StandardCharsets.UTF_8));
+	}
+	
+	static Long decode(String cursor) {
+		if( cursor == null || cursor.isEmpty() ) {
+			return null;
+		}
+		try {
+			return Long.valueOf(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+		} catch (IllegalArgumentException e) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursor inválido");
+		}
+	}
+	
+}
@@ -0,0 +1,81 @@
+package com.jps.libraryapi.api.resouce;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Collectors;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import com.jps.libraryapi.api.dto.BookImportDTO;
+import com.jps.libraryapi.api.imports.BookImportJob;
+import com.jps.libraryapi.api.imports.BookImportRegistry;
+import com.jps.libraryapi.api.imports.BookImporter;
+
+@RestController
+@RequestMapping("/api/books/imports")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class BookImportController {
+
+	private BookImporter importer;
+	private BookImportRegistry registry;
+	
+	public BookImportController(BookImporter importer, BookImportRegistry registry) {
+		this.importer = importer;
+		this.registry = registry;
+	}
+	
+	/**
+	 * A importação lê o corpo enquanto ele chega, numa thread das importações. O 202 com o id e o Location
+	 * é enviado antes da leitura, e a resposta segue aberta (processamento assíncrono do servlet) até o
+	 * fim da importação, quando recebe o resultado; o progresso fica em GET /imports/{id}.
+	 */
+	@PostMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+	@ResponseStatus(HttpStatus.ACCEPTED)
+	public DeferredResult<BookImportDTO> importBooks( @RequestParam(defaultValue = "csv") String format,
+			HttpServletRequest request, HttpServletResponse response ) throws IOException {
+		// sem timeout: quem dita a duração é o envio do arquivo
+		DeferredResult<BookImportDTO> result = new DeferredResult<>(0L);
+		BookImportJob job;
+		try {
+			job = importer.start(format, request.getInputStream(), finished -> result.setResult(finished.toDTO()));
+		} catch (IllegalArgumentException e) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+		} catch (RejectedExecutionException e) {
+			throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Importações demais em andamento");
+		}
+		
+		response.setStatus(HttpStatus.ACCEPTED.value());
+		response.setHeader(HttpHeaders.LOCATION, ServletUriComponentsBuilder.fromCurrentRequestUri()
+				.path("/{id}").buildAndExpand(job.getId()).toUriString());
+		response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+		response.flushBuffer();
+		return result;
+	}
+	
+	@GetMapping
+	public List<BookImportDTO> list() {
+		return registry.list()
+				.stream()
+				.map(BookImportJob::toDTO)
+				.collect(Collectors.toList());
+	}
+	
+	@GetMapping("{id}")
+	public BookImportDTO get( @PathVariable String id ) {
+		return registry.get(id)
+				.map(BookImportJob::toDTO)
+				.orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+	}
+	
+}
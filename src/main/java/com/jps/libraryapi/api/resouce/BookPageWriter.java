@@ -0,0 +1,51 @@
+package com.jps.libraryapi.api.resouce;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.springframework.data.domain.Slice;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.jps.libraryapi.api.mapper.BookMapper;
+import com.jps.libraryapi.model.entity.Book;
+
+/**
+ * Envelope enxuto da busca: {"page","size","hasNext","total"?,"items":[...]}. Cada livro é escrito
+ * no gerador enquanto é mapeado, sem montar a lista de BookDTO nem passar pelo PageImpl. Os livros da
+ * página já chegam em lista do banco: o streaming é só da serialização.
+ */
+public class BookPageWriter {
+
+	private final JsonFactory factory;
+
+	public BookPageWriter(JsonFactory factory) {
+		this.factory = factory;
+	}
+
+	// total nulo quando o cliente não pediu a contagem
+	public void write(Slice<Book> page, Long total, OutputStream out) throws IOException {
+		try (JsonGenerator generator = factory.createGenerator(out, JsonEncoding.UTF8)) {
+			generator.writeStartObject();
+			generator.writeNumberField("page", page.getNumber());
+			generator.writeNumberField("size", page.getSize());
+			generator.writeBooleanField("hasNext", page.hasNext());
+			if( total != null ) {
+				generator.writeNumberField("total", total);
+			}
+			generator.writeArrayFieldStart("items");
+			for (Book book : page) {
+				generator.writeStartObject();
+				generator.writeNumberField("id", BookMapper.toDtoId(book.getId()));
+				generator.writeStringField("title", book.getTitle());
+				generator.writeStringField("author", book.getAuthor());
+				generator.writeStringField("isbn", book.getIsbn());
+				generator.writeEndObject();
+			}
+			generator.writeEndArray();
+			generator.writeEndObject();
+		}
+	}
+
+}
@@ -0,0 +1,85 @@
+package com.jps.libraryapi.api.resouce;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+/**
+ * Formatos em que a API entrega e recebe livros. JSON é o padrão; CBOR e Smile são as mesmas
+ * estruturas em binário, escolhidas pelo Accept/Content-Type.
+ */
+public final class BookRepresentation {
+
+	public static final MediaType SMILE = new MediaType("application", "x-jackson-smile");
+
+	private static final Map<MediaType, String> BINARY = new LinkedHashMap<>();
+
+	static {
+		BINARY.put(MediaType.APPLICATION_CBOR, "cbor");
+		BINARY.put(SMILE, "smile");
+	}
+
+	private static final Map<String, JsonFactory> FACTORIES = new HashMap<>();
+
+	static {
+		FACTORIES.put("", new JsonFactory());
+		FACTORIES.put("cbor", new CBORFactory());
+		FACTORIES.put("smile", new SmileFactory());
+	}
+
+	private BookRepresentation() {
+	}
+
+	public static MediaType mediaType(String variant) {
+		return BINARY.entrySet().stream()
+				.filter(binary -> binary.getValue().equals(variant))
+				.map(Map.Entry::getKey)
+				.findFirst()
+				.orElse(MediaType.APPLICATION_JSON);
+	}
+
+	// para as respostas escritas direto com JsonGenerator, sem passar pelos conversores
+	public static JsonFactory factory(String variant) {
+		return FACTORIES.get(variant);
+	}
+
+	/**
+	 * Sufixo da ETag para o formato pedido no Accept: vazio para JSON, "cbor" ou "smile" para os binários.
+	 * Cada formato é outra representação e precisa de um validador próprio.
+	 */
+	public static String variant(String accept) {
+		if( accept == null ) {
+			return "";
+		}
+		List<MediaType> types;
+		try {
+			types = MediaType.parseMediaTypes(accept);
+		} catch (InvalidMediaTypeException e) {
+			return "";
+		}
+		MediaType.sortBySpecificityAndQuality(types);
+		for (MediaType type : types) {
+			if( type.getQualityValue() == 0 ) {
+				continue;
+			}
+			if( type.isCompatibleWith(MediaType.APPLICATION_JSON) ) {
+				return "";
+			}
+			for (Map.Entry<MediaType, String> binary : BINARY.entrySet()) {
+				if( type.isCompatibleWith(binary.getKey()) ) {
+					return binary.getValue();
+				}
+			}
+		}
+		return "";
+	}
+
+}
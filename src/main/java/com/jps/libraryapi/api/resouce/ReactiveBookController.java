@@ -0,0 +1,121 @@
+package com.jps.libraryapi.api.resouce;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.validation.Valid;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.jps.libraryapi.api.dto.BookCursorPageDTO;
+import com.jps.libraryapi.api.dto.BookDTO;
+import com.jps.libraryapi.api.exceptions.ApiErrors;
+import com.jps.libraryapi.api.mapper.BookMapper;
+import com.jps.libraryapi.exception.BusinessException;
+import com.jps.libraryapi.model.entity.Book;
+import com.jps.libraryapi.service.ReactiveBookService;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Mesmo contrato de /api/books do {@link BookController}, sobre WebFlux e R2DBC (profile reactive).
+ * A busca com Accept application/x-ndjson é transmitida livro a livro, direto do resultado da consulta.
+ */
+@RestController
+@RequestMapping("/api/books")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveBookController {
+
+	private ReactiveBookService service;
+	
+	public ReactiveBookController(ReactiveBookService service) {
+		this.service = service;
+	}
+	
+	@PostMapping
+	@ResponseStatus(HttpStatus.CREATED)
+	public Mono<BookDTO> create( @RequestBody @Valid BookDTO bookDTO ) {
+		return service.save(BookMapper.toEntity(bookDTO)).map(BookMapper::toDto);
+	}
+	
+	@GetMapping("{id}")
+	public Mono<BookDTO> get( @PathVariable Long id ) {
+		return service
+					.getById(id).map(BookMapper::toDto)
+					.switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND)));
+	}
+	
+	@DeleteMapping("{id}")
+	@ResponseStatus(HttpStatus.NO_CONTENT)
+	public Mono<Void> delete( @PathVariable Long id ) {
+		return service
+					.getById(id)
+					.switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND)))
+					.flatMap(service::delete);
+	}
+	
+	@PutMapping("{id}")
+	public Mono<BookDTO> update( @PathVariable Long id, @RequestBody @Validated(BookDTO.Update.class) BookDTO bookDTO ) {
+		return service
+					.getById(id)
+					.switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND)))
+					.flatMap(book -> {
+						book.setAuthor(bookDTO.getAuthor());
+						book.setTitle(bookDTO.getTitle());
+						return service.update(book);
+					})
+					.map(BookMapper::toDto);
+	}
+	
+	@GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+	public Mono<Page<BookDTO>> find( BookDTO bookDTO, Pageable pageRequest ) {
+		return service.find(BookMapper.toEntity(bookDTO), pageRequest)
+				.map(page -> page.map(BookMapper::toDto));
+	}
+	
+	@GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+	public Flux<BookDTO> stream( BookDTO bookDTO, Sort sort ) {
+		return service.find(BookMapper.toEntity(bookDTO), sort).map(BookMapper::toDto);
+	}
+	
+	@GetMapping("cursor")
+	public Mono<BookCursorPageDTO> findAfter( BookDTO bookDTO,
+			@RequestParam(required = false) String after,
+			@RequestParam(defaultValue = "20") int size ) {
+		BookCursor.checkSize(size);
+		return service.findAfter(BookMapper.toEntity(bookDTO), BookCursor.decode(after), size + 1)
+				.collectList()
+				.map(books -> {
+					boolean hasNext = books.size() > size;
+					List<BookDTO> content = books.stream()
+							.limit(size)
+							.map(BookMapper::toDto)
+							.collect(Collectors.toList());
+					String next = hasNext ? BookCursor.encode(books.get(size - 1).getId()) : null;
+					return BookCursorPageDTO.builder().content(content).next(next).build();
+				});
+	}
+	
+	@ExceptionHandler(WebExchangeBindException.class)
+	@ResponseStatus(HttpStatus.BAD_REQUEST)
+	public ApiErrors handleValidationExceptions(WebExchangeBindException ex) {
+		return new ApiErrors(ex);
+	}
+	
+	@ExceptionHandler(BusinessException.class)
+	@ResponseStatus(HttpStatus.BAD_REQUEST)
+	public ApiErrors handleBusinessExceptions(BusinessException ex) {
+		return new ApiErrors(ex);
+	}
+	
+}
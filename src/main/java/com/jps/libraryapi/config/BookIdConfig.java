@@ -0,0 +1,37 @@
+package com.jps.libraryapi.config;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.data.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.jps.libraryapi.model.entity.BookIdGenerator;
+
+/**
+ * Tamanho do bloco de ids de Book: repassado ao Hibernate para o {@link BookIdGenerator}
+ * e aplicado à sequência do banco pela {@link BookSequenceMigration}, que roda antes do JPA.
+ */
+@Configuration
+public class BookIdConfig {
+
+	@Bean
+	public HibernatePropertiesCustomizer bookIdAllocationSize(
+			@Value("${library.book-id.allocation-size:" + BookIdGenerator.DEFAULT_ALLOCATION_SIZE + "}") int allocationSize) {
+		return properties -> properties.put(BookIdGenerator.ALLOCATION_SIZE, allocationSize);
+	}
+
+	@Bean
+	public BookSequenceMigration bookSequenceMigration(DataSource dataSource,
+			@Value("${library.book-id.allocation-size:" + BookIdGenerator.DEFAULT_ALLOCATION_SIZE + "}") int allocationSize) {
+		return new BookSequenceMigration(dataSource, allocationSize);
+	}
+
+	@Bean
+	public static EntityManagerFactoryDependsOnPostProcessor entityManagerFactoryDependsOnBookSequenceMigration() {
+		return new EntityManagerFactoryDependsOnPostProcessor("bookSequenceMigration");
+	}
+
+}
@@ -0,0 +1,61 @@
+package com.jps.libraryapi.config;
+
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.jps.libraryapi.model.entity.BookIdGenerator;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Deixa a book_seq de um banco existente de acordo com o allocation-size configurado, antes de o Hibernate
+ * subir (ele recusa sequência com incremento diferente do bloco). Cobre o banco que ainda gerava ids por
+ * IDENTITY (cria a sequência acima do maior id) e a troca do tamanho do bloco (reinicia a sequência acima
+ * do maior id e do valor atual). Banco novo fica para o Hibernate criar. As consultas são as do H2.
+ */
+@Slf4j
+public class BookSequenceMigration implements InitializingBean {
+
+	private final JdbcTemplate jdbcTemplate;
+	private final int allocationSize;
+
+	public BookSequenceMigration(DataSource dataSource, int allocationSize) {
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+		this.allocationSize = allocationSize;
+	}
+
+	@Override
+	public void afterPropertiesSet() {
+		migrate();
+	}
+
+	public void migrate() {
+		if( count("select count(*) from information_schema.tables where upper(table_name) = 'BOOK'") == 0 ) {
+			return;
+		}
+		// pooled-lo usa o valor da sequência como primeiro id do bloco
+		long next = count("select coalesce(max(id), 0) + 1 from book");
+		List<Long[]> sequence = jdbcTemplate.query(
+				"select current_value, increment from information_schema.sequences where upper(sequence_name) = ?",
+				(row, i) -> new Long[] { row.getLong(1), row.getLong(2) },
+				BookIdGenerator.SEQUENCE.toUpperCase());
+		
+		if( sequence.isEmpty() ) {
+			jdbcTemplate.execute("create sequence " + BookIdGenerator.SEQUENCE + " start with " + next + " increment by " + allocationSize);
+			log.info("Sequência {} criada a partir do id {} com blocos de {}", BookIdGenerator.SEQUENCE, next, allocationSize);
+		} else if( sequence.get(0)[1] != allocationSize ) {
+			long restart = Math.max(next, sequence.get(0)[0] + sequence.get(0)[1]);
+			jdbcTemplate.execute("alter sequence " + BookIdGenerator.SEQUENCE + " restart with " + restart + " increment by " + allocationSize);
+			log.info("Sequência {} reiniciada em {} com blocos de {} (antes {})", BookIdGenerator.SEQUENCE, restart, allocationSize, sequence.get(0)[1]);
+		}
+	}
+
+	private long count(String sql) {
+		return jdbcTemplate.queryForObject(sql, Long.class);
+	}
+
+}
@@ -0,0 +1,26 @@
+package com.jps.libraryapi.config;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.UUID;
+
+import org.hibernate.boot.spi.SessionFactoryOptions;
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+
+/**
+ * Cache de segundo nível com um CacheManager JCache próprio para cada SessionFactory.
+ * As chaves do Hibernate não identificam o banco e o CacheManager padrão é único na JVM,
+ * então dois contextos (testes, restart do devtools) enxergariam as entidades um do outro
+ * e o primeiro a fechar fecharia as regiões do outro. Os limites continuam vindo do application.conf.
+ */
+public class ContextScopedJCacheRegionFactory extends JCacheRegionFactory {
+
+	private static final long serialVersionUID = 1L;
+
+	@Override
+	@SuppressWarnings("rawtypes")
+	protected URI getUri(SessionFactoryOptions settings, Map properties) {
+		return URI.create("library:" + UUID.randomUUID());
+	}
+
+}
@@ -0,0 +1,35 @@
+package com.jps.libraryapi.config;
+
+import javax.sql.DataSource;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.web.ReactivePageableHandlerMethodArgumentResolver;
+import org.springframework.data.web.ReactiveSortHandlerMethodArgumentResolver;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+import org.springframework.web.reactive.result.method.annotation.ArgumentResolverConfigurer;
+
+/**
+ * Ajustes da pilha reativa (profile reactive). O Spring Boot só registra os resolvers de Pageable e Sort
+ * para Spring MVC, e não cria DataSource quando há um ConnectionFactory R2DBC; o JPA continua
+ * necessário para criar o schema e para o que ainda é bloqueante, como a importação.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@EnableConfigurationProperties(DataSourceProperties.class)
+public class ReactiveConfig implements WebFluxConfigurer {
+
+	@Override
+	public void configureArgumentResolvers(ArgumentResolverConfigurer configurer) {
+		configurer.addCustomResolver(new ReactivePageableHandlerMethodArgumentResolver(), new ReactiveSortHandlerMethodArgumentResolver());
+	}
+	
+	@Bean
+	public DataSource dataSource(DataSourceProperties properties) {
+		return properties.initializeDataSourceBuilder().build();
+	}
+	
+}
@@ -0,0 +1,13 @@
+package com.jps.libraryapi.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Tarefas periódicas, como a reconstrução do filtro de ISBNs.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+
+}
@@ -0,0 +1,35 @@
+package com.jps.libraryapi.config.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * Marca as leituras que alimentam caches compartilhados pelo processo (cache de livros, cache de segundo
+ * nível e cache de consultas). Com library.datasource.replica.cache-loads-from-primary=true elas vão para o
+ * primário mesmo em transação read-only: um dado atrasado da réplica guardado no cache seria servido a
+ * todos os clientes até expirar. Por padrão seguem o roteamento normal e a réplica atende também as cargas
+ * de cache. Sem a réplica habilitada não muda nada.
+ */
+public final class PrimaryReads {
+
+	private static final ThreadLocal<Boolean> REQUIRED = new ThreadLocal<>();
+
+	private PrimaryReads() {
+	}
+
+	public static <T> T of(Supplier<T> read) {
+		Boolean previous = REQUIRED.get();
+		REQUIRED.set(Boolean.TRUE);
+		try {
+			return read.get();
+		} finally {
+			if( previous == null ) {
+				REQUIRED.remove();
+			}
+		}
+	}
+
+	static boolean required() {
+		return REQUIRED.get() != null;
+	}
+
+}
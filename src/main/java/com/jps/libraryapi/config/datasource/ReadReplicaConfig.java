@@ -0,0 +1,78 @@
+package com.jps.libraryapi.config.datasource;
+
+import java.io.Closeable;
+import java.time.Duration;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * DataSource roteado entre o primário (spring.datasource.*) e a réplica (library.datasource.replica.*,
+ * com as propriedades do Hikari, como jdbc-url e maximum-pool-size). Os dois pools não viram beans:
+ * o Spring Boot espera um único DataSource para inicializar o schema, e é o roteado que o JPA usa.
+ * Com a réplica desligada, o Spring Boot cria o DataSource único de sempre.
+ */
+@Configuration
+@ConditionalOnProperty(name = "library.datasource.replica.enabled", havingValue = "true")
+public class ReadReplicaConfig {
+
+	public static final String PRIMARY_POOL = "primary";
+	public static final String REPLICA_POOL = "replica";
+
+	@Bean
+	public DataSource dataSource(DataSourceProperties properties, Environment environment, MeterRegistry registry,
+			@Value("${library.datasource.replica.read-your-writes:5s}") Duration readYourWrites,
+			@Value("${library.datasource.replica.cache-loads-from-primary:false}") boolean cacheLoadsFromPrimary) {
+		Binder binder = Binder.get(environment);
+		
+		HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+		binder.bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+		HikariDataSource replica = DataSourceBuilder.create().type(HikariDataSource.class).build();
+		binder.bind("library.datasource.replica", Bindable.ofInstance(replica));
+		
+		for (HikariDataSource pool : new HikariDataSource[] { primary, replica }) {
+			pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+		}
+		primary.setPoolName(PRIMARY_POOL);
+		replica.setPoolName(REPLICA_POOL);
+		
+		ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(primary, replica, readYourWrites, cacheLoadsFromPrimary, registry);
+		routing.afterPropertiesSet();
+		return new RoutedDataSource(routing, primary, replica);
+	}
+	
+	// o Spring fecha beans Closeable no shutdown; é por aqui que os pools são fechados
+	static class RoutedDataSource extends LazyConnectionDataSourceProxy implements Closeable {
+		
+		private final HikariDataSource[] pools;
+		
+		RoutedDataSource(DataSource routing, HikariDataSource... pools) {
+			super(routing);
+			this.pools = pools;
+		}
+		
+		@Override
+		public void close() {
+			for (HikariDataSource pool : pools) {
+				pool.close();
+			}
+		}
+		
+	}
+
+}
@@ -0,0 +1,73 @@
+package com.jps.libraryapi.config.datasource;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Transação read-only vai para a réplica; o resto (escritas e acesso fora de transação) vai para o primário,
+ * assim como as do cliente que acabou de escrever (ReadYourWrites) e, com cacheLoadsFromPrimary, as leituras
+ * que alimentam caches (PrimaryReads).
+ * A decisão usa o estado da transação no momento em que a conexão é obtida, por isso este DataSource
+ * fica atrás de um LazyConnectionDataSourceProxy: sem ele o JPA pega a conexão antes de a transação
+ * ser marcada como read-only.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+	public static final String ROUTED = "library.datasource.routed";
+
+	enum Target { PRIMARY, REPLICA }
+
+	private final Duration readYourWrites;
+	private final boolean cacheLoadsFromPrimary;
+	private final Counter primary;
+	private final Counter replica;
+	private final Counter pinned;
+	private final Counter cacheLoad;
+
+	public ReadWriteRoutingDataSource(DataSource primary, DataSource replica, Duration readYourWrites,
+			boolean cacheLoadsFromPrimary, MeterRegistry registry) {
+		Map<Object, Object> targets = new HashMap<>();
+		targets.put(Target.PRIMARY, primary);
+		targets.put(Target.REPLICA, replica);
+		setTargetDataSources(targets);
+		setDefaultTargetDataSource(primary);
+		this.readYourWrites = readYourWrites;
+		this.cacheLoadsFromPrimary = cacheLoadsFromPrimary;
+
+		this.primary = Counter.builder(ROUTED).tag("target", "primary").tag("reason", "write").register(registry);
+		this.replica = Counter.builder(ROUTED).tag("target", "replica").tag("reason", "read-only").register(registry);
+		this.pinned = Counter.builder(ROUTED).tag("target", "primary").tag("reason", "read-your-writes").register(registry);
+		this.cacheLoad = Counter.builder(ROUTED).tag("target", "primary").tag("reason", "cache-load").register(registry);
+	}
+
+	@Override
+	protected Object determineCurrentLookupKey() {
+		if( !TransactionSynchronizationManager.isCurrentTransactionReadOnly() ) {
+			if( TransactionSynchronizationManager.isActualTransactionActive() ) {
+				ReadYourWrites.written();
+			}
+			primary.increment();
+			return Target.PRIMARY;
+		}
+		if( cacheLoadsFromPrimary && PrimaryReads.required() ) {
+			cacheLoad.increment();
+			return Target.PRIMARY;
+		}
+		if( ReadYourWrites.writtenWithin(readYourWrites) ) {
+			pinned.increment();
+			return Target.PRIMARY;
+		}
+		replica.increment();
+		return Target.REPLICA;
+	}
+
+}
@@ -0,0 +1,57 @@
+package com.jps.libraryapi.config.datasource;
+
+import java.time.Duration;
+import java.util.function.LongConsumer;
+
+/**
+ * Momento da última escrita do cliente da requisição atual. Enquanto a escrita estiver dentro da janela,
+ * as leituras continuam no primário, para o cliente não ler da réplica um dado anterior ao que ele mesmo gravou.
+ * Fora de uma requisição (carga inicial, tarefas agendadas) não há cliente e nada fica preso ao primário.
+ */
+public final class ReadYourWrites {
+
+	private static final ThreadLocal<Client> CLIENT = new ThreadLocal<>();
+
+	private ReadYourWrites() {
+	}
+
+	/**
+	 * @param lastWrite última escrita conhecida do cliente, em epoch millis (0 se nunca escreveu)
+	 * @param onWrite chamado na primeira escrita da requisição, com o novo momento
+	 */
+	public static void open(long lastWrite, LongConsumer onWrite) {
+		CLIENT.set(new Client(lastWrite, onWrite));
+	}
+
+	public static void close() {
+		CLIENT.remove();
+	}
+
+	static void written() {
+		Client client = CLIENT.get();
+		if( client != null && !client.wrote ) {
+			client.wrote = true;
+			client.lastWrite = System.currentTimeMillis();
+			client.onWrite.accept(client.lastWrite);
+		}
+	}
+
+	static boolean writtenWithin(Duration window) {
+		Client client = CLIENT.get();
+		return client != null && System.currentTimeMillis() - client.lastWrite < window.toMillis();
+	}
+
+	private static class Client {
+
+		long lastWrite;
+		boolean wrote;
+		final LongConsumer onWrite;
+
+		Client(long lastWrite, LongConsumer onWrite) {
+			this.lastWrite = lastWrite;
+			this.onWrite = onWrite;
+		}
+
+	}
+
+}
@@ -0,0 +1,67 @@
+package com.jps.libraryapi.config.datasource;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.WebUtils;
+
+/**
+ * Leva o momento da última escrita do cliente num cookie, para as leituras seguintes dele
+ * ficarem no primário durante a janela de read-your-writes. O cookie é gravado na hora da escrita,
+ * antes de a resposta começar a ser enviada.
+ */
+@Component
+@ConditionalOnProperty(name = "library.datasource.replica.enabled", havingValue = "true")
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+	public static final String COOKIE = "library-last-write";
+
+	private final Duration window;
+
+	public ReadYourWritesFilter(@Value("${library.datasource.replica.read-your-writes:5s}") Duration window) {
+		this.window = window;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+			throws ServletException, IOException {
+		ReadYourWrites.open(lastWrite(request), written -> {
+			if( !response.isCommitted() ) {
+				Cookie cookie = new Cookie(COOKIE, Long.toString(written));
+				cookie.setPath("/");
+				cookie.setHttpOnly(true);
+				cookie.setMaxAge((int) Math.max(1, window.getSeconds()));
+				response.addCookie(cookie);
+			}
+		});
+		try {
+			chain.doFilter(request, response);
+		} finally {
+			ReadYourWrites.close();
+		}
+	}
+
+	private static long lastWrite(HttpServletRequest request) {
+		Cookie cookie = WebUtils.getCookie(request, COOKIE);
+		if( cookie == null ) {
+			return 0;
+		}
+		try {
+			// um valor no futuro prenderia o cliente ao primário para sempre
+			return Math.min(Long.parseLong(cookie.getValue()), System.currentTimeMillis());
+		} catch (NumberFormatException e) {
+			return 0;
+		}
+	}
+
+}
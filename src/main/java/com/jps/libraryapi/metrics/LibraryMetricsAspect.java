@@ -0,0 +1,90 @@
+package com.jps.libraryapi.metrics;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.AfterReturning;
+import org.aspectj.lang.annotation.AfterThrowing;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.jps.libraryapi.exception.BusinessException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+@Aspect
+@Component
+public class LibraryMetricsAspect {
+
+	public static final String SERVICE_TIMER = "library.service";
+	public static final String REPOSITORY_TIMER = "library.repository";
+	public static final String API_ERRORS = "library.api.errors";
+	
+	private final MeterRegistry registry;
+	// os Timers são resolvidos uma vez por método: no caminho quente só há um get no mapa
+	private final Map<Method, Timer> serviceTimers = new ConcurrentHashMap<>();
+	private final Map<Method, Timer> repositoryTimers = new ConcurrentHashMap<>();
+	
+	public LibraryMetricsAspect(MeterRegistry registry) {
+		this.registry = registry;
+	}
+	
+	@Around("execution(* com.jps.libraryapi.service.BookService+.*(..))")
+	public Object timeService(ProceedingJoinPoint joinPoint) throws Throwable {
+		return time(SERVICE_TIMER, serviceTimers, joinPoint);
+	}
+	
+	@Around("execution(* com.jps.libraryapi.model.repository.BookRepository+.*(..))")
+	public Object timeRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+		return time(REPOSITORY_TIMER, repositoryTimers, joinPoint);
+	}
+	
+	@AfterThrowing(pointcut = "within(com.jps.libraryapi.api.resouce..*)", throwing = "ex")
+	public void countStatusErrors(ResponseStatusException ex) {
+		errorCounter(ex.getStatus() == HttpStatus.NOT_FOUND ? "not_found" : "status", ex.getRawStatusCode()).increment();
+	}
+	
+	@AfterReturning("@annotation(org.springframework.web.bind.annotation.ExceptionHandler) && args(ex)")
+	public void countHandledErrors(Exception ex) {
+		if( ex instanceof BusinessException ) {
+			errorCounter("business", 400).increment();
+		} else if( ex instanceof MethodArgumentNotValidException ) {
+			errorCounter("validation", 400).increment();
+		} else if( ex instanceof OptimisticLockingFailureException ) {
+			errorCounter("precondition", 412).increment();
+		}
+	}
+	
+	private Object time(String name, Map<Method, Timer> timers, ProceedingJoinPoint joinPoint) throws Throwable {
+		Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+		Timer timer = timers.get(method);
+		if( timer == null ) {
+			timer = timers.computeIfAbsent(method, key -> Timer.builder(name).tag("method", key.getName()).register(registry));
+		}
+		long start = System.nanoTime();
+		try {
+			return joinPoint.proceed();
+		} finally {
+			timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		}
+	}
+	
+	private Counter errorCounter(String type, int status) {
+		return Counter.builder(API_ERRORS)
+				.tag("type", type)
+				.tag("status", Integer.toString(status))
+				.register(registry);
+	}
+	
+}
@@ -0,0 +1,108 @@
+package com.jps.libraryapi.metrics;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Tempos por fase de uma requisição, acumulados na thread que a atende. Cada fase registra apenas o
+ * próprio tempo: o que foi gasto em fases aninhadas (ex.: db dentro de service) é descontado da fase externa.
+ */
+public final class ServerTiming {
+
+	public static final String VALIDATION = "validation";
+	public static final String MAPPING = "mapping";
+	public static final String SERVICE = "service";
+	public static final String DB = "db";
+	public static final String SERIALIZATION = "serialization";
+	public static final String TOTAL = "total";
+	
+	private static final List<String> ORDER = Arrays.asList(VALIDATION, MAPPING, SERVICE, DB, SERIALIZATION);
+	
+	private static final ThreadLocal<ServerTiming> CURRENT = new ThreadLocal<>();
+	
+	private final long start = System.nanoTime();
+	private final Map<String, Long> phases = new HashMap<>();
+	private long[] nested = new long[8];
+	private int depth;
+	private long handlerReturned;
+	private long total = -1;
+	
+	public static ServerTiming start() {
+		ServerTiming timing = new ServerTiming();
+		CURRENT.set(timing);
+		return timing;
+	}
+	
+	public static ServerTiming current() {
+		return CURRENT.get();
+	}
+	
+	public static void clear() {
+		CURRENT.remove();
+	}
+	
+	public void enter() {
+		if( depth == nested.length ) {
+			nested = Arrays.copyOf(nested, depth * 2);
+		}
+		nested[depth++] = 0;
+	}
+	
+	public void exit(String phase, long elapsedNanos) {
+		long own = elapsedNanos - nested[--depth];
+		if( depth > 0 ) {
+			nested[depth - 1] += elapsedNanos;
+		}
+		add(phase, own);
+	}
+	
+	public void add(String phase, long nanos) {
+		phases.merge(phase, nanos, Long::sum);
+	}
+	
+	/** Tudo o que veio antes do controller: leitura do corpo, binding e bean validation. */
+	public void handlerStarted() {
+		if( !phases.containsKey(VALIDATION) ) {
+			add(VALIDATION, System.nanoTime() - start);
+		}
+	}
+	
+	public void handlerReturned() {
+		handlerReturned = System.nanoTime();
+	}
+	
+	/** Tudo o que veio depois do controller é escrita da resposta, essencialmente o Jackson. */
+	public void finish() {
+		long end = System.nanoTime();
+		if( handlerReturned > 0 ) {
+			add(SERIALIZATION, end - handlerReturned);
+		}
+		total = end - start;
+	}
+	
+	public long getTotalMillis() {
+		return (total < 0 ? System.nanoTime() - start : total) / 1_000_000;
+	}
+	
+	public long getNanos(String phase) {
+		return phases.getOrDefault(phase, 0L);
+	}
+	
+	public String toHeader() {
+		StringJoiner header = new StringJoiner(", ");
+		ORDER.stream().filter(phases::containsKey).forEach(phase -> header.add(entry(phase, phases.get(phase))));
+		if( total >= 0 ) {
+			header.add(entry(TOTAL, total));
+		}
+		return header.toString();
+	}
+	
+	private static String entry(String phase, long nanos) {
+		return String.format(Locale.ROOT, "%s;dur=%.3f", phase, nanos / 1_000_000d);
+	}
+	
+}
@@ -0,0 +1,52 @@
+package com.jps.libraryapi.metrics;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+@Aspect
+@Component
+@ConditionalOnProperty(name = "library.server-timing.enabled", havingValue = "true")
+public class ServerTimingAspect {
+
+	@Around("execution(@(org.springframework.web.bind.annotation.*Mapping) * com.jps.libraryapi.api.resouce..*(..))")
+	public Object timeController(ProceedingJoinPoint joinPoint) throws Throwable {
+		ServerTiming timing = ServerTiming.current();
+		if( timing == null ) {
+			return joinPoint.proceed();
+		}
+		timing.handlerStarted();
+		try {
+			// o que sobra no controller depois de descontar o serviço é a conversão DTO <-> entidade
+			return measure(timing, ServerTiming.MAPPING, joinPoint);
+		} finally {
+			timing.handlerReturned();
+		}
+	}
+	
+	@Around("execution(* com.jps.libraryapi.service.BookService+.*(..))")
+	public Object timeService(ProceedingJoinPoint joinPoint) throws Throwable {
+		return measure(ServerTiming.current(), ServerTiming.SERVICE, joinPoint);
+	}
+	
+	@Around("execution(* com.jps.libraryapi.model.repository.BookRepository+.*(..))")
+	public Object timeRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+		return measure(ServerTiming.current(), ServerTiming.DB, joinPoint);
+	}
+	
+	private Object measure(ServerTiming timing, String phase, ProceedingJoinPoint joinPoint) throws Throwable {
+		if( timing == null ) {
+			return joinPoint.proceed();
+		}
+		timing.enter();
+		long start = System.nanoTime();
+		try {
+			return joinPoint.proceed();
+		} finally {
+			timing.exit(phase, System.nanoTime() - start);
+		}
+	}
+	
+}
@@ -0,0 +1,100 @@
+package com.jps.libraryapi.metrics;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.MethodParameter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerExecutionChain;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Publica o {@link ServerTiming} da requisição no header Server-Timing. A resposta é mantida em buffer
+ * para que o header ainda possa ser escrito depois da serialização; por isso os handlers que escrevem
+ * direto na resposta (export, search), que são streaming, ficam de fora.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "library.server-timing.enabled", havingValue = "true")
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+	public static final String HEADER = "Server-Timing";
+	
+	private final long slowThresholdMillis;
+	private final ObjectProvider<RequestMappingHandlerMapping> handlerMapping;
+	
+	public ServerTimingFilter(@Value("${library.server-timing.slow-threshold-ms:0}") long slowThresholdMillis,
+			@Qualifier("requestMappingHandlerMapping") ObjectProvider<RequestMappingHandlerMapping> handlerMapping) {
+		this.slowThresholdMillis = slowThresholdMillis;
+		this.handlerMapping = handlerMapping;
+	}
+	
+	@Override
+	protected boolean shouldNotFilter(HttpServletRequest request) {
+		String path = request.getRequestURI().substring(request.getContextPath().length());
+		return !path.startsWith("/api/books") || writesResponse(request);
+	}
+	
+	// handler que recebe a resposta ou o stream dela escreve o corpo por conta própria
+	private boolean writesResponse(HttpServletRequest request) {
+		RequestMappingHandlerMapping mapping = handlerMapping.getIfAvailable();
+		if( mapping == null ) {
+			return false;
+		}
+		HandlerExecutionChain chain;
+		try {
+			chain = mapping.getHandler(request);
+		} catch (Exception e) {
+			return false;
+		}
+		if( chain == null || !(chain.getHandler() instanceof HandlerMethod) ) {
+			return false;
+		}
+		for (MethodParameter parameter : ((HandlerMethod) chain.getHandler()).getMethodParameters()) {
+			Class<?> type = parameter.getParameterType();
+			if( ServletResponse.class.isAssignableFrom(type) || OutputStream.class.isAssignableFrom(type)
+					|| Writer.class.isAssignableFrom(type) ) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+			throws ServletException, IOException {
+		ServerTiming timing = ServerTiming.start();
+		ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+		try {
+			chain.doFilter(request, wrapper);
+		} finally {
+			ServerTiming.clear();
+			timing.finish();
+			String header = timing.toHeader();
+			wrapper.setHeader(HEADER, header);
+			wrapper.copyBodyToResponse();
+			
+			if( slowThresholdMillis > 0 && timing.getTotalMillis() >= slowThresholdMillis ) {
+				log.warn("Requisição lenta {} {} -> {} em {} ms: {}", request.getMethod(), request.getRequestURI(),
+						wrapper.getStatus(), timing.getTotalMillis(), header);
+			}
+		}
+	}
+	
+}
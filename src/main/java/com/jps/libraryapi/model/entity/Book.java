@@ -1,11 +1,24 @@
 package com.jps.libraryapi.model.entity;
 
+import java.time.Instant;
+
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
 import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import javax.persistence.Version;
+
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+
+import com.jps.libraryapi.model.repository.BookVersion;
 
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -13,16 +26,21 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
-@Table
-public class Book {
+@Table(uniqueConstraints = @UniqueConstraint(name = Book.ISBN_UNIQUE, columnNames = "isbn"))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "book")
+public class Book implements BookVersion {
+	
+	public static final String ISBN_UNIQUE = "uk_book_isbn";
 	
 	@Id
 	@Column
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = BookIdGenerator.SEQUENCE)
+	@GenericGenerator(name = BookIdGenerator.SEQUENCE, strategy = "com.jps.libraryapi.model.entity.BookIdGenerator")
 	private Long id;
 	
 	@Column
@@ -33,5 +51,18 @@ public class Book {
 	
 	@Column
 	private String isbn;
+	
+	@Version
+	@Column
+	private Long version;
+	
+	@Column
+	private Instant lastModified;
+	
+	@PrePersist
+	@PreUpdate
+	void touch() {
+		lastModified = Instant.now();
+	}
 
 }
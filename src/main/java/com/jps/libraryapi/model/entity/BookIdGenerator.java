@@ -0,0 +1,31 @@
+package com.jps.libraryapi.model.entity;
+
+import java.util.Properties;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+/**
+ * Ids de {@link Book} em blocos da sequência book_seq, com o otimizador pooled-lo: cada valor da sequência
+ * é o primeiro id de um bloco de allocation-size ids, distribuídos em memória. O tamanho do bloco vem da
+ * configuração (library.book-id.allocation-size), que o JPA não permite em @SequenceGenerator.
+ */
+public class BookIdGenerator extends SequenceStyleGenerator {
+
+	public static final String SEQUENCE = "book_seq";
+	public static final String ALLOCATION_SIZE = "library.book-id.allocation-size";
+	public static final int DEFAULT_ALLOCATION_SIZE = 50;
+
+	@Override
+	public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+		Object allocationSize = serviceRegistry.getService(ConfigurationService.class).getSettings().get(ALLOCATION_SIZE);
+		params.setProperty(SEQUENCE_PARAM, SEQUENCE);
+		params.setProperty(INCREMENT_PARAM, allocationSize == null ? Integer.toString(DEFAULT_ALLOCATION_SIZE) : allocationSize.toString());
+		params.setProperty(OPT_PARAM, "pooled-lo");
+		super.configure(type, params, serviceRegistry);
+	}
+
+}
@@ -0,0 +1,49 @@
+package com.jps.libraryapi.model.reactive;
+
+import java.time.Instant;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.relational.core.mapping.Table;
+
+import com.jps.libraryapi.model.entity.Book;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Linha da tabela book para o R2DBC. É um tipo separado da entidade JPA porque o Spring Data atribui
+ * os repositórios a cada módulo pelo tipo de domínio: um {@code @Entity} seria reivindicado pelo JPA.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Table("book")
+public class BookRecord {
+
+	@Id
+	private Long id;
+	
+	private String title;
+	
+	private String author;
+	
+	private String isbn;
+	
+	@Version
+	private Long version;
+	
+	private Instant lastModified;
+	
+	public static BookRecord of(Book book) {
+		return new BookRecord(book.getId(), book.getTitle(), book.getAuthor(), book.getIsbn(), book.getVersion(), book.getLastModified());
+	}
+	
+	public Book toBook() {
+		return new Book(id, title, author, isbn, version, lastModified);
+	}
+
+}
@@ -0,0 +1,11 @@
+package com.jps.libraryapi.model.reactive;
+
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+
+import reactor.core.publisher.Mono;
+
+public interface ReactiveBookRepository extends R2dbcRepository<BookRecord, Long>, ReactiveBookRepositoryCustom {
+
+	Mono<Boolean> existsByIsbn(String isbn);
+	
+}
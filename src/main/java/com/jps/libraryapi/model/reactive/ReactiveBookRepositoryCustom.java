@@ -0,0 +1,21 @@
+package com.jps.libraryapi.model.reactive;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveBookRepositoryCustom {
+
+	Mono<BookRecord> insert(BookRecord book);
+	
+	Flux<BookRecord> find(BookRecord filter, Pageable pageable);
+	
+	Flux<BookRecord> find(BookRecord filter, Sort sort);
+	
+	Mono<Long> count(BookRecord filter);
+	
+	Flux<BookRecord> findAfter(BookRecord filter, Long afterId, int limit);
+
+}
@@ -0,0 +1,80 @@
+package com.jps.libraryapi.model.reactive;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.data.relational.core.query.Query;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public class ReactiveBookRepositoryCustomImpl implements ReactiveBookRepositoryCustom {
+
+	private final R2dbcEntityTemplate template;
+	
+	public ReactiveBookRepositoryCustomImpl(R2dbcEntityTemplate template) {
+		this.template = template;
+	}
+	
+	/**
+	 * A sequência é compartilhada com o Hibernate, que usa o otimizador pooled-lo: cada valor devolvido é o
+	 * início de um bloco de allocation-size ids. Usar o próprio valor (e descartar o resto do bloco) nunca
+	 * colide com os blocos que o Hibernate reservou.
+	 */
+	@Override
+	public Mono<BookRecord> insert(BookRecord book) {
+		return template.getDatabaseClient()
+				.sql("select next value for book_seq")
+				.map(row -> row.get(0, Long.class))
+				.one()
+				.flatMap(id -> {
+					book.setId(id);
+					return template.insert(book);
+				});
+	}
+	
+	@Override
+	public Flux<BookRecord> find(BookRecord filter, Pageable pageable) {
+		return template.select(Query.query(criteriaOf(filter)).with(pageable), BookRecord.class);
+	}
+	
+	@Override
+	public Flux<BookRecord> find(BookRecord filter, Sort sort) {
+		return template.select(Query.query(criteriaOf(filter)).sort(sort), BookRecord.class);
+	}
+	
+	@Override
+	public Mono<Long> count(BookRecord filter) {
+		return template.count(Query.query(criteriaOf(filter)), BookRecord.class);
+	}
+	
+	@Override
+	public Flux<BookRecord> findAfter(BookRecord filter, Long afterId, int limit) {
+		Criteria criteria = criteriaOf(filter);
+		if( afterId != null ) {
+			criteria = criteria.and("id").greaterThan(afterId);
+		}
+		return template.select(Query.query(criteria).sort(Sort.by("id")).limit(limit), BookRecord.class);
+	}
+	
+	/** Mesma semântica do Example usado pelo BookService: contém, ignorando maiúsculas, nulos ignorados. */
+	private static Criteria criteriaOf(BookRecord filter) {
+		Criteria criteria = Criteria.empty();
+		if( filter.getId() != null ) {
+			criteria = criteria.and("id").is(filter.getId());
+		}
+		criteria = containing(criteria, "title", filter.getTitle());
+		criteria = containing(criteria, "author", filter.getAuthor());
+		return containing(criteria, "isbn", filter.getIsbn());
+	}
+	
+	private static Criteria containing(Criteria criteria, String column, String value) {
+		if( value == null ) {
+			return criteria;
+		}
+		String escaped = value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+		return criteria.and(Criteria.where(column).like("%" + escaped + "%").ignoreCase(true));
+	}
+	
+}
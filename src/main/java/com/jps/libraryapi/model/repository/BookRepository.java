@@ -1,11 +1,54 @@
 package com.jps.libraryapi.model.repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.jps.libraryapi.model.entity.Book;
 
-public interface BookRepository extends JpaRepository<Book, Long>{
+public interface BookRepository extends JpaRepository<Book, Long>, BookRepositoryCustom {
 	
+	String SELECT_PROJECTION = "select new com.jps.libraryapi.model.entity.Book(b.id, b.title, b.author, b.isbn, b.version, b.lastModified) from Book b";
+	
+	// read-only: com a réplica de leitura habilitada, a checagem vai para a réplica; por isso fica fora do
+	// cache de consultas, que é compartilhado e guardaria a resposta atrasada
+	@Transactional(readOnly = true)
 	boolean existsByIsbn(String isbn);
 	
+	// no cache do Hibernate, invalidada pela região de timestamps a cada escrita na tabela book;
+	// o serviço marca a leitura como carga de cache (PrimaryReads)
+	@Transactional(readOnly = true)
+	@QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+	Optional<BookVersion> findVersionById(Long id);
+	
+	// leitura sem entidade gerenciada: os livros saem montados das colunas, sem snapshot para dirty checking.
+	// O livro por id continua em findById, servido pela região de entidades do cache de segundo nível
+	@Transactional(readOnly = true)
+	@Query(SELECT_PROJECTION + " where b.id in :ids")
+	List<Book> findAllProjectedById(@Param("ids") Collection<Long> ids);
+	
+	@Transactional(readOnly = true)
+	@Query("select b.isbn from Book b where b.isbn in :isbns")
+	Set<String> findExistingIsbns(@Param("isbns") Collection<String> isbns);
+	
+	@Query("select b from Book b")
+	@QueryHints({ @QueryHint(name = "org.hibernate.fetchSize", value = "1000"),
+				  @QueryHint(name = "org.hibernate.readOnly", value = "true") })
+	Stream<Book> streamAll();
+	
+	@Query("select b.isbn from Book b")
+	@QueryHints({ @QueryHint(name = "org.hibernate.fetchSize", value = "1000"),
+				  @QueryHint(name = "org.hibernate.readOnly", value = "true") })
+	Stream<String> streamIsbns();
+	
 }
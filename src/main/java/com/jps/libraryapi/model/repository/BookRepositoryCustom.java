@@ -0,0 +1,51 @@
+package com.jps.libraryapi.model.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Pageable;
+
+import com.jps.libraryapi.model.entity.Book;
+
+public interface BookRepositoryCustom {
+
+	List<Book> insertAll(List<Book> books);
+	
+	/**
+	 * Remove o livro, se existir; como em {@link #removeAllById}.
+	 * @return quantidade de linhas removidas (0 ou 1)
+	 */
+	int removeById(Long id);
+	
+	/**
+	 * Remove os livros de {@code ids} que existirem, numa única transação: as linhas são lidas com lock
+	 * e removidas como entidades, para que o cache de segundo nível perca só esses livros.
+	 * @return os ids de fato removidos; ids inexistentes ficam de fora
+	 */
+	List<Long> removeAllById(Collection<Long> ids);
+	
+	/**
+	 * Atualiza só os campos não nulos de {@code changes}, incrementando a versão. A linha é lida com lock e
+	 * alterada pela entidade, para que o cache de segundo nível troque só esse livro.
+	 * Com {@code version} informado, só altera a linha que ainda estiver nessa versão.
+	 * @return quantidade de linhas alteradas (0 ou 1)
+	 */
+	int patch(Long id, Long version, Book changes);
+	
+	// só o conteúdo da página, sem a consulta de contagem; os livros não são gerenciados pelo JPA
+	List<Book> findPage(Example<Book> example, Pageable pageable);
+	
+	// a página com até lookahead livros a mais, para saber se existe a próxima sem contar
+	List<Book> findPage(Example<Book> example, Pageable pageable, int lookahead);
+	
+	// livros não gerenciados, como em findPage
+	List<Book> findAfter(Example<Book> example, Long afterId, int limit);
+	
+	List<Long> findIdsAfter(Example<Book> example, Long afterId, int limit);
+	
+	// livros não gerenciados: o contexto de persistência não cresce enquanto o stream é percorrido
+	Stream<Book> streamAll(Example<Book> example);
+
+}
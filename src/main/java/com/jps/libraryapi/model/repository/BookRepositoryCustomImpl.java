@@ -0,0 +1,187 @@
+package com.jps.libraryapi.model.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CompoundSelection;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.convert.QueryByExamplePredicateBuilder;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.jps.libraryapi.model.entity.Book;
+
+public class BookRepositoryCustomImpl implements BookRepositoryCustom {
+
+	@PersistenceContext
+	private EntityManager entityManager;
+	
+	private static final int STREAM_FETCH_SIZE = 1000;
+	
+	private final int batchSize;
+	
+	public BookRepositoryCustomImpl(@Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int batchSize) {
+		this.batchSize = batchSize;
+	}
+	
+	@Override
+	@Transactional(propagation = Propagation.MANDATORY)
+	public List<Book> insertAll(List<Book> books) {
+		int count = 0;
+		for (Book book : books) {
+			entityManager.persist(book);
+			if (++count % batchSize == 0) {
+				entityManager.flush();
+				entityManager.clear();
+			}
+		}
+		entityManager.flush();
+		entityManager.clear();
+		return books;
+	}
+	
+	// DELETE e UPDATE em massa (JPQL, Criteria ou SQL nativo) esvaziariam a região book inteira do cache
+	// de segundo nível; pelas entidades, o Hibernate tira ou troca só os livros alterados
+	@Override
+	@Transactional
+	public int removeById(Long id) {
+		return removeAllById(Collections.singletonList(id)).size();
+	}
+	
+	@Override
+	@Transactional
+	public List<Long> removeAllById(Collection<Long> ids) {
+		List<Book> books = entityManager.createQuery("select b from Book b where b.id in :ids", Book.class)
+				.setParameter("ids", ids)
+				.setLockMode(LockModeType.PESSIMISTIC_WRITE)
+				.getResultList();
+		List<Long> removed = new ArrayList<>(books.size());
+		for (Book book : books) {
+			entityManager.remove(book);
+			removed.add(book.getId());
+		}
+		entityManager.flush();
+		return removed;
+	}
+	
+	// a consulta com lock lê a linha do banco, não do cache: a versão conferida é a atual. find com lock
+	// também travaria a entrada do cache, e o livro alterado não voltaria para lá
+	@Override
+	@Transactional
+	public int patch(Long id, Long version, Book changes) {
+		List<Book> found = entityManager.createQuery("select b from Book b where b.id = :id", Book.class)
+				.setParameter("id", id)
+				.setLockMode(LockModeType.PESSIMISTIC_WRITE)
+				.getResultList();
+		if( found.isEmpty() || (version != null && !version.equals(found.get(0).getVersion())) ) {
+			return 0;
+		}
+		Book book = found.get(0);
+		if( changes.getTitle() != null ) {
+			book.setTitle(changes.getTitle());
+		}
+		if( changes.getAuthor() != null ) {
+			book.setAuthor(changes.getAuthor());
+		}
+		entityManager.flush();
+		return 1;
+	}
+	
+	// livros montados direto das colunas (new Book(...)): não entram no contexto de persistência nem guardam snapshot
+	private static CompoundSelection<Book> projection(CriteriaBuilder cb, Root<Book> root) {
+		return cb.construct(Book.class, root.get("id"), root.get("title"), root.get("author"), root.get("isbn"),
+				root.get("version"), root.get("lastModified"));
+	}
+	
+	@Override
+	@Transactional(readOnly = true)
+	public List<Book> findPage(Example<Book> example, Pageable pageable) {
+		return findPage(example, pageable, 0);
+	}
+	
+	@Override
+	@Transactional(readOnly = true)
+	public List<Book> findPage(Example<Book> example, Pageable pageable, int lookahead) {
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<Book> query = cb.createQuery(Book.class);
+		Root<Book> root = query.from(Book.class);
+		query.select(projection(cb, root))
+			.where(QueryByExamplePredicateBuilder.getPredicate(root, cb, example))
+			.orderBy(QueryUtils.toOrders(pageable.getSort(), root, cb));
+		
+		TypedQuery<Book> typedQuery = entityManager.createQuery(query);
+		if( pageable.isPaged() ) {
+			typedQuery.setFirstResult(Math.toIntExact(pageable.getOffset()));
+			typedQuery.setMaxResults(pageable.getPageSize() + lookahead);
+		}
+		return typedQuery.getResultList();
+	}
+	
+	@Override
+	@Transactional(readOnly = true)
+	public List<Book> findAfter(Example<Book> example, Long afterId, int limit) {
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<Book> query = cb.createQuery(Book.class);
+		Root<Book> root = query.from(Book.class);
+		
+		Predicate predicate = QueryByExamplePredicateBuilder.getPredicate(root, cb, example);
+		if( afterId != null ) {
+			predicate = cb.and(predicate, cb.greaterThan(root.get("id"), afterId));
+		}
+		query.select(projection(cb, root)).where(predicate).orderBy(cb.asc(root.get("id")));
+		
+		return entityManager.createQuery(query)
+				.setMaxResults(limit)
+				.getResultList();
+	}
+	
+	@Override
+	@Transactional(readOnly = true)
+	public List<Long> findIdsAfter(Example<Book> example, Long afterId, int limit) {
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<Long> query = cb.createQuery(Long.class);
+		Root<Book> root = query.from(Book.class);
+		
+		Predicate predicate = QueryByExamplePredicateBuilder.getPredicate(root, cb, example);
+		if( afterId != null ) {
+			predicate = cb.and(predicate, cb.greaterThan(root.get("id"), afterId));
+		}
+		query.select(root.<Long>get("id")).where(predicate).orderBy(cb.asc(root.get("id")));
+		
+		return entityManager.createQuery(query)
+				.setMaxResults(limit)
+				.getResultList();
+	}
+	
+	@Override
+	@Transactional(propagation = Propagation.MANDATORY, readOnly = true)
+	public Stream<Book> streamAll(Example<Book> example) {
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<Book> query = cb.createQuery(Book.class);
+		Root<Book> root = query.from(Book.class);
+		query.select(projection(cb, root))
+			.where(QueryByExamplePredicateBuilder.getPredicate(root, cb, example))
+			.orderBy(cb.asc(root.get("id")));
+		
+		return entityManager.createQuery(query)
+				.setHint("org.hibernate.fetchSize", STREAM_FETCH_SIZE)
+				.setHint("org.hibernate.readOnly", true)
+				.getResultStream();
+	}
+
+}
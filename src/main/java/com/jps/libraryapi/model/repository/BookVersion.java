@@ -0,0 +1,16 @@
+package com.jps.libraryapi.model.repository;
+
+import java.time.Instant;
+
+/**
+ * Projeção fechada usada nos GETs condicionais: só as colunas necessárias para ETag e Last-Modified.
+ */
+public interface BookVersion {
+
+	Long getId();
+	
+	Long getVersion();
+	
+	Instant getLastModified();
+
+}
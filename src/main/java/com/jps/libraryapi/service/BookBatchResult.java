@@ -0,0 +1,30 @@
+package com.jps.libraryapi.service;
+
+import com.jps.libraryapi.model.entity.Book;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class BookBatchResult {
+
+	private int index;
+	
+	private Book book;
+	
+	private String error;
+	
+	public static BookBatchResult created(int index, Book book) {
+		return new BookBatchResult(index, book, null);
+	}
+	
+	public static BookBatchResult rejected(int index, Book book, String error) {
+		return new BookBatchResult(index, book, error);
+	}
+	
+	public boolean isCreated() {
+		return error == null;
+	}
+	
+}
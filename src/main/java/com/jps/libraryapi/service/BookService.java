@@ -2,21 +2,44 @@ package com.jps.libraryapi.service;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import com.jps.libraryapi.model.entity.Book;
+import com.jps.libraryapi.model.repository.BookVersion;
 
 public interface BookService {
 
 	Book save(Book any);
 
+	List<BookBatchResult> saveAll(List<Book> books);
+
 	Optional<Book> getById(Long id);
 
-	void delete(Book book);
+	List<Book> getAllById(Collection<Long> ids);
+
+	Optional<BookVersion> getVersion(Long id);
+
+	boolean deleteById(Long id);
+
+	int deleteAll(Collection<Long> ids);
+
+	int deleteAll(Book filter);
 
 	Book update(Book book);
 
+	boolean patch(Long id, Long version, Book changes);
+
 	Page<Book> find( Book filter, Pageable pageRequest );
 
+	Slice<Book> findSlice( Book filter, Pageable pageRequest );
+
+	Slice<Book> findAfter( Book filter, Long afterId, int size );
+
+	void export( Book filter, Consumer<Book> consumer );
+
 }
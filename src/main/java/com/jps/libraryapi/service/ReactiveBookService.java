@@ -0,0 +1,28 @@
+package com.jps.libraryapi.service;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import com.jps.libraryapi.model.entity.Book;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveBookService {
+
+	Mono<Book> save(Book book);
+
+	Mono<Book> getById(Long id);
+
+	Mono<Void> delete(Book book);
+
+	Mono<Book> update(Book book);
+
+	Mono<Page<Book>> find( Book filter, Pageable pageRequest );
+
+	Flux<Book> find( Book filter, Sort sort );
+
+	Flux<Book> findAfter( Book filter, Long afterId, int size );
+
+}
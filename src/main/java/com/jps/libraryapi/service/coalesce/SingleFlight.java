@@ -0,0 +1,69 @@
+package com.jps.libraryapi.service.coalesce;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Junta chamadas concorrentes com a mesma chave: a primeira executa o loader e as que chegam
+ * enquanto ela está em andamento recebem o mesmo resultado (ou a mesma exceção).
+ * Nada fica guardado depois que a chamada termina; isso é papel do cache.
+ */
+public class SingleFlight<K, V> {
+
+	private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+	private final LongAdder calls = new LongAdder();
+	private final LongAdder coalesced = new LongAdder();
+
+	public V execute(K key, Supplier<V> loader) {
+		calls.increment();
+		CompletableFuture<V> call = new CompletableFuture<>();
+		CompletableFuture<V> running = inFlight.putIfAbsent(key, call);
+		if( running != null ) {
+			coalesced.increment();
+			return await(running);
+		}
+		
+		try {
+			V value = loader.get();
+			call.complete(value);
+			return value;
+		} catch (RuntimeException | Error e) {
+			call.completeExceptionally(e);
+			throw e;
+		} finally {
+			inFlight.remove(key, call);
+		}
+	}
+
+	public long calls() {
+		return calls.sum();
+	}
+
+	public long coalesced() {
+		return coalesced.sum();
+	}
+
+	public int inFlight() {
+		return inFlight.size();
+	}
+
+	private static <V> V await(CompletableFuture<V> running) {
+		try {
+			return running.join();
+		} catch (CompletionException e) {
+			Throwable cause = e.getCause();
+			if( cause instanceof RuntimeException ) {
+				throw (RuntimeException) cause;
+			}
+			if( cause instanceof Error ) {
+				throw (Error) cause;
+			}
+			throw e;
+		}
+	}
+
+}
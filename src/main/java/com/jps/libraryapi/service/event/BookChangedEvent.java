@@ -0,0 +1,46 @@
+package com.jps.libraryapi.service.event;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import com.jps.libraryapi.model.entity.Book;
+
+import lombok.Getter;
+
+@Getter
+public class BookChangedEvent {
+
+	public enum Type { SAVED, PATCHED, DELETED }
+	
+	private final Type type;
+	
+	private final List<Book> books;
+	
+	private final Collection<Long> ids;
+	
+	private BookChangedEvent(Type type, List<Book> books, Collection<Long> ids) {
+		this.type = type;
+		this.books = books;
+		this.ids = ids;
+	}
+	
+	public static BookChangedEvent saved(Book book) {
+		return saved(Collections.singletonList(book));
+	}
+	
+	public static BookChangedEvent saved(List<Book> books) {
+		return new BookChangedEvent(Type.SAVED, books, books.stream().map(Book::getId).collect(Collectors.toList()));
+	}
+	
+	// só os campos não nulos de cada livro foram alterados
+	public static BookChangedEvent patched(Book changes) {
+		return new BookChangedEvent(Type.PATCHED, Collections.singletonList(changes), Collections.singletonList(changes.getId()));
+	}
+	
+	public static BookChangedEvent deleted(Collection<Long> ids) {
+		return new BookChangedEvent(Type.DELETED, Collections.emptyList(), ids);
+	}
+	
+}
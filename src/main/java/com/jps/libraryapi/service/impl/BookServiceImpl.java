@@ -1,65 +1,396 @@
 package com.jps.libraryapi.service.impl;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.*;
 import org.springframework.data.domain.ExampleMatcher.StringMatcher;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import com.jps.libraryapi.config.CacheConfig;
+import com.jps.libraryapi.config.datasource.PrimaryReads;
 import com.jps.libraryapi.exception.BusinessException;
 import com.jps.libraryapi.model.entity.Book;
 import com.jps.libraryapi.model.repository.BookRepository;
+import com.jps.libraryapi.model.repository.BookVersion;
+import com.jps.libraryapi.service.BookBatchResult;
 import com.jps.libraryapi.service.BookService;
+import com.jps.libraryapi.service.coalesce.SingleFlight;
+import com.jps.libraryapi.service.event.BookChangedEvent;
+import com.jps.libraryapi.service.isbn.IsbnConstraint;
+import com.jps.libraryapi.service.isbn.IsbnLocks;
+import com.jps.libraryapi.service.isbn.KnownIsbns;
+import com.jps.libraryapi.service.search.BookQueryCache;
+import com.jps.libraryapi.service.search.BookSearchIndex;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 
 @Service
 public class BookServiceImpl implements BookService {
 
+	private static final int ISBN_LOOKUP_CHUNK = 1000;
+	private static final int DELETE_CHUNK = 500;
+	private static final int ID_LOOKUP_CHUNK = 500;
+	private static final int ISBN_LOCK_STRIPES = 64;
+
+	public static final String COALESCED = "library.service.coalesced";
+
 	private BookRepository repository;
+	private ApplicationEventPublisher publisher;
+	private Optional<BookSearchIndex> searchIndex;
+	private Optional<BookQueryCache> queryCache;
+	private Optional<KnownIsbns> knownIsbns;
+	private CacheManager cacheManager;
+	// null quando a unicidade fica só por conta do índice único
+	private IsbnLocks isbnLocks;
+	
+	// leituras idênticas e simultâneas compartilham a mesma consulta ao banco
+	private final SingleFlight<Long, Optional<Book>> getByIdFlight = new SingleFlight<>();
+	private final SingleFlight<List<Object>, Page<Book>> findFlight = new SingleFlight<>();
 	
-	public BookServiceImpl(BookRepository repository) {
+	public BookServiceImpl(BookRepository repository, ApplicationEventPublisher publisher, Optional<BookSearchIndex> searchIndex,
+			Optional<BookQueryCache> queryCache, Optional<KnownIsbns> knownIsbns, CacheManager cacheManager, MeterRegistry registry,
+			@Value("${library.isbn-check.pre-check:false}") boolean isbnPreCheck) {
 		this.repository = repository;
+		this.publisher = publisher;
+		this.searchIndex = searchIndex;
+		this.queryCache = queryCache;
+		this.knownIsbns = knownIsbns;
+		this.cacheManager = cacheManager;
+		this.isbnLocks = isbnPreCheck ? new IsbnLocks(ISBN_LOCK_STRIPES) : null;
+		bind(registry, getByIdFlight, "getById");
+		bind(registry, findFlight, "find");
+	}
+	
+	private static void bind(MeterRegistry registry, SingleFlight<?, ?> flight, String method) {
+		FunctionCounter.builder(COALESCED, flight, SingleFlight::coalesced)
+			.description("Chamadas que reaproveitaram uma consulta idêntica em andamento")
+			.tag("method", method)
+			.register(registry);
+		Gauge.builder(COALESCED + ".inflight", flight, SingleFlight::inFlight)
+			.tag("method", method)
+			.register(registry);
+	}
+	
+	// dentro de uma transação a leitura precisa enxergar as escritas dela, então não é compartilhada
+	private static <K, V> V coalesce(SingleFlight<K, V> flight, K key, Supplier<V> loader) {
+		if( TransactionSynchronizationManager.isActualTransactionActive() ) {
+			return loader.get();
+		}
+		return flight.execute(key, loader);
 	}
 	
 	@Override
+	@CachePut(cacheNames = CacheConfig.BOOKS, key = "#result.id")
 	public Book save(Book book) {
-		if( repository.existsByIsbn(book.getIsbn()) ) {
-			throw new BusinessException("Isbn já cadastrado");
+		if( isbnLocks == null ) {
+			return insert(book);
+		}
+		// com a consulta prévia, o lock impede que dois cadastros do mesmo ISBN passem juntos pela checagem
+		Lock lock = isbnLocks.get(book.getIsbn());
+		lock.lock();
+		try {
+			boolean exists = knownIsbns
+					.map(known -> known.exists(book.getIsbn(), repository::existsByIsbn))
+					.orElseGet(() -> repository.existsByIsbn(book.getIsbn()));
+			if( exists ) {
+				throw new BusinessException("Isbn já cadastrado");
+			}
+			return insert(book);
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	// o índice único decide: o flush faz a violação aparecer aqui, e não no commit de quem chamou
+	private Book insert(Book book) {
+		// entra no filtro antes do insert para um cadastro simultâneo do mesmo ISBN não ser descartado sem ir ao banco
+		knownIsbns.ifPresent(known -> known.add(book.getIsbn()));
+		Book saved;
+		try {
+			saved = repository.saveAndFlush(book);
+		} catch (DataIntegrityViolationException e) {
+			if( IsbnConstraint.isViolation(e) ) {
+				throw new BusinessException("Isbn já cadastrado");
+			}
+			throw e;
+		}
+		publisher.publishEvent(BookChangedEvent.saved(saved));
+		return saved;
+	}
+
+	@Override
+	@Transactional
+	public List<BookBatchResult> saveAll(List<Book> books) {
+		Set<String> existing = findExistingIsbns(books);
+		Set<String> seen = new HashSet<>();
+		List<Book> accepted = new ArrayList<>(books.size());
+		List<BookBatchResult> results = new ArrayList<>(books.size());
+		
+		for (int i = 0; i < books.size(); i++) {
+			Book book = books.get(i);
+			if( existing.contains(book.getIsbn()) || !seen.add(book.getIsbn()) ) {
+				results.add(BookBatchResult.rejected(i, book, "Isbn já cadastrado"));
+			} else {
+				accepted.add(book);
+				results.add(BookBatchResult.created(i, book));
+			}
+		}
+		
+		try {
+			repository.insertAll(accepted);
+		} catch (DataIntegrityViolationException e) {
+			// outro cadastro do mesmo ISBN entrou entre a consulta e o insert; o lote inteiro é desfeito
+			if( IsbnConstraint.isViolation(e) ) {
+				throw new BusinessException("Isbn já cadastrado");
+			}
+			throw e;
+		}
+		publisher.publishEvent(BookChangedEvent.saved(accepted));
+		return results;
+	}
+	
+	private Set<String> findExistingIsbns(List<Book> books) {
+		List<String> all = new ArrayList<>(books.size());
+		books.forEach(book -> all.add(book.getIsbn()));
+		// com o filtro, só os ISBNs que provavelmente existem vão para o banco
+		List<String> isbns = knownIsbns.map(known -> known.probable(all)).orElse(all);
+		
+		Set<String> existing = new HashSet<>();
+		for (int from = 0; from < isbns.size(); from += ISBN_LOOKUP_CHUNK) {
+			List<String> chunk = isbns.subList(from, Math.min(from + ISBN_LOOKUP_CHUNK, isbns.size()));
+			existing.addAll(repository.findExistingIsbns(chunk));
 		}
-		return repository.save(book);
+		knownIsbns.ifPresent(known -> known.falsePositives(new HashSet<>(isbns).size() - existing.size()));
+		return existing;
 	}
 
 	@Override
+	@Cacheable(cacheNames = CacheConfig.BOOKS, key = "#id", unless = "#result == null")
 	public Optional<Book> getById(Long id) {
-		return this.repository.findById(id);
+		// o resultado vai para o cache de livros e para o de segundo nível (ver PrimaryReads)
+		return coalesce(getByIdFlight, id, () -> PrimaryReads.of(() -> this.repository.findById(id)));
 	}
 
+	// uma consulta IN por bloco; o resultado segue a ordem pedida e ignora ids inexistentes
 	@Override
-	public void delete(Book book) {
-		if(book == null || book.getId() == null) {
-			throw new IllegalArgumentException("Book id cant be null");
+	public List<Book> getAllById(Collection<Long> ids) {
+		Set<Long> requested = new LinkedHashSet<>(ids);
+		requested.remove(null);
+		List<Long> distinct = new ArrayList<>(requested);
+		Map<Long, Book> found = new HashMap<>(distinct.size() * 2);
+		for (int from = 0; from < distinct.size(); from += ID_LOOKUP_CHUNK) {
+			List<Long> chunk = distinct.subList(from, Math.min(from + ID_LOOKUP_CHUNK, distinct.size()));
+			repository.findAllProjectedById(chunk).forEach(book -> found.put(book.getId(), book));
+		}
+		
+		List<Book> books = new ArrayList<>(found.size());
+		for (Long id : distinct) {
+			Book book = found.get(id);
+			if( book != null ) {
+				books.add(book);
+			}
+		}
+		return books;
+	}
+
+	@Override
+	public Optional<BookVersion> getVersion(Long id) {
+		// com o livro no cache, a versão sai dele; a consulta de versão só roda quando não há nada em cache
+		Cache books = cacheManager.getCache(CacheConfig.BOOKS);
+		Book cached = books == null ? null : books.get(id, Book.class);
+		if( cached != null ) {
+			return Optional.of(cached);
+		}
+		return PrimaryReads.of(() -> repository.findVersionById(id));
+	}
+
+	@Override
+	@CacheEvict(cacheNames = CacheConfig.BOOKS, key = "#id")
+	public boolean deleteById(Long id) {
+		if( repository.removeById(id) == 0 ) {
+			return false;
 		}
-		repository.delete(book);
+		publisher.publishEvent(BookChangedEvent.deleted(Collections.singletonList(id)));
+		return true;
 	}
 	
+	// cada bloco é removido na sua própria transação, para não segurar locks da tabela inteira;
+	// o evento sai a cada bloco, com os ids que existiam, e um bloco que falhar não esconde os já removidos
 	@Override
+	public int deleteAll(Collection<Long> ids) {
+		List<Long> distinct = new ArrayList<>(new HashSet<>(ids));
+		int deleted = 0;
+		for (int from = 0; from < distinct.size(); from += DELETE_CHUNK) {
+			deleted += delete(distinct.subList(from, Math.min(from + DELETE_CHUNK, distinct.size())));
+		}
+		return deleted;
+	}
+	
+	@Override
+	public int deleteAll(Book filter) {
+		Example<Book> example = exampleOf(filter);
+		int deleted = 0;
+		List<Long> chunk = repository.findIdsAfter(example, null, DELETE_CHUNK);
+		while( !chunk.isEmpty() ) {
+			deleted += delete(chunk);
+			if( chunk.size() < DELETE_CHUNK ) {
+				break;
+			}
+			chunk = repository.findIdsAfter(example, chunk.get(chunk.size() - 1), DELETE_CHUNK);
+		}
+		return deleted;
+	}
+	
+	private int delete(List<Long> chunk) {
+		List<Long> removed = repository.removeAllById(chunk);
+		evict(removed);
+		if( !removed.isEmpty() ) {
+			publisher.publishEvent(BookChangedEvent.deleted(removed));
+		}
+		return removed.size();
+	}
+	
+	// só os livros removidos saem do cache de livros; os demais continuam servindo
+	private void evict(Collection<Long> ids) {
+		Cache books = cacheManager.getCache(CacheConfig.BOOKS);
+		if( books != null ) {
+			ids.forEach(books::evict);
+		}
+	}
+	
+	@Override
+	@CachePut(cacheNames = CacheConfig.BOOKS, key = "#result.id")
 	public Book update(Book book) {
 		if(book == null || book.getId() == null) {
 			throw new IllegalArgumentException("Book id cant be null");
 		}
 				
-		return repository.save(book);
+		Book updated = repository.save(book);
+		publisher.publishEvent(BookChangedEvent.saved(updated));
+		return updated;
+	}
+
+	@Override
+	@Transactional
+	@CacheEvict(cacheNames = CacheConfig.BOOKS, key = "#id")
+	public boolean patch(Long id, Long version, Book changes) {
+		if( repository.patch(id, version, changes) == 0 ) {
+			// só quando nada foi alterado é preciso uma segunda consulta para separar 404 de 412
+			if( version != null && repository.existsById(id) ) {
+				throw new OptimisticLockingFailureException("Livro " + id + " não está na versão " + version);
+			}
+			return false;
+		}
+		publisher.publishEvent(BookChangedEvent.patched(changes.toBuilder().id(id).build()));
+		return true;
 	}
 
 	@Override
     public Page<Book> find( Book filter, Pageable pageRequest ) {
-        Example<Book> example = Example.of(filter,
+        // a chave usa uma cópia do filtro para não mudar de hash se o chamador alterar o original
+        List<Object> key = Arrays.asList(filter.toBuilder().build(), pageRequest);
+        return coalesce(findFlight, key, () -> {
+            if( searchIndex.isPresent() && searchIndex.get().supports(pageRequest) ) {
+                return findIndexed(searchIndex.get(), filter, pageRequest);
+            }
+            Example<Book> example = exampleOf(filter);
+            if( queryCache.isPresent() && !TransactionSynchronizationManager.isActualTransactionActive() ) {
+                // páginas e contagens guardadas valem para todos os clientes (ver PrimaryReads)
+                return queryCache.get().find(filter, pageRequest,
+                        () -> PrimaryReads.of(() -> repository.findPage(example, pageRequest)),
+                        () -> PrimaryReads.of(() -> repository.count(example)));
+            }
+            return PageableExecutionUtils.getPage(repository.findPage(example, pageRequest), pageRequest,
+                    () -> repository.count(example));
+        });
+    }
+
+	@Override
+    public Slice<Book> findSlice( Book filter, Pageable pageRequest ) {
+        if( searchIndex.isPresent() && searchIndex.get().supports(pageRequest) ) {
+            return findIndexed(searchIndex.get(), filter, pageRequest);
+        }
+        // sem a consulta de contagem: um livro a mais basta para saber se há próxima página
+        List<Book> content = repository.findPage(exampleOf(filter), pageRequest, 1);
+        boolean hasNext = pageRequest.isPaged() && content.size() > pageRequest.getPageSize();
+        if( hasNext ) {
+            content = content.subList(0, pageRequest.getPageSize());
+        }
+        return new SliceImpl<>(content, pageRequest, hasNext);
+    }
+
+	@Override
+    public Slice<Book> findAfter( Book filter, Long afterId, int size ) {
+        List<Book> content = repository.findAfter(exampleOf(filter), afterId, size + 1);
+        boolean hasNext = content.size() > size;
+        if( hasNext ) {
+            content = content.subList(0, size);
+        }
+        return new SliceImpl<>(content, PageRequest.of(0, size), hasNext);
+    }
+
+	@Override
+	@Transactional(readOnly = true)
+    public void export( Book filter, Consumer<Book> consumer ) {
+        try (Stream<Book> books = repository.streamAll(exampleOf(filter))) {
+            books.forEach(consumer);
+        }
+    }
+
+    private Example<Book> exampleOf( Book filter ) {
+        return Example.of(filter,
                     ExampleMatcher
                             .matching()
                             .withIgnoreCase()
                             .withIgnoreNullValues()
                             .withStringMatcher( ExampleMatcher.StringMatcher.CONTAINING )
         ) ;
-        return repository.findAll(example, pageRequest);
+    }
+
+    private Page<Book> findIndexed( BookSearchIndex index, Book filter, Pageable pageRequest ) {
+        Page<Long> ids = index.search(filter, pageRequest);
+        if( ids.getContent().isEmpty() ) {
+            return new PageImpl<>(Collections.emptyList(), pageRequest, ids.getTotalElements());
+        }
+        Map<Long, Book> books = repository.findAllProjectedById(ids.getContent())
+                .stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
+        List<Book> content = ids.getContent()
+                .stream()
+                .map(books::get)
+                .filter(book -> book != null)
+                .collect(Collectors.toList());
+        return new PageImpl<>(content, pageRequest, ids.getTotalElements());
     }
 
 }
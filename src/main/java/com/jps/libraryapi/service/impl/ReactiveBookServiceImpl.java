@@ -0,0 +1,107 @@
+package com.jps.libraryapi.service.impl;
+
+import java.time.Instant;
+import java.util.Collections;
+
+import javax.persistence.Cache;
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import com.jps.libraryapi.exception.BusinessException;
+import com.jps.libraryapi.model.entity.Book;
+import com.jps.libraryapi.model.reactive.BookRecord;
+import com.jps.libraryapi.model.reactive.ReactiveBookRepository;
+import com.jps.libraryapi.service.ReactiveBookService;
+import com.jps.libraryapi.service.event.BookChangedEvent;
+import com.jps.libraryapi.service.isbn.IsbnConstraint;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveBookServiceImpl implements ReactiveBookService {
+
+	private ReactiveBookRepository repository;
+	private ApplicationEventPublisher publisher;
+	private EntityManagerFactory entityManagerFactory;
+	
+	public ReactiveBookServiceImpl(ReactiveBookRepository repository, ApplicationEventPublisher publisher,
+			EntityManagerFactory entityManagerFactory) {
+		this.repository = repository;
+		this.publisher = publisher;
+		this.entityManagerFactory = entityManagerFactory;
+	}
+	
+	@Override
+	public Mono<Book> save(Book book) {
+		// o índice único decide, como no BookServiceImpl
+		return repository.insert(touch(BookRecord.of(book)))
+				.onErrorMap(IsbnConstraint::isViolation, e -> new BusinessException("Isbn já cadastrado"))
+				.map(BookRecord::toBook)
+				.doOnNext(saved -> changed(BookChangedEvent.saved(saved)));
+	}
+
+	@Override
+	public Mono<Book> getById(Long id) {
+		return repository.findById(id).map(BookRecord::toBook);
+	}
+
+	@Override
+	public Mono<Void> delete(Book book) {
+		if( book == null || book.getId() == null ) {
+			return Mono.error(new IllegalArgumentException("Book id cant be null"));
+		}
+		return repository.deleteById(book.getId())
+				.then(Mono.fromRunnable(() -> changed(BookChangedEvent.deleted(Collections.singleton(book.getId())))));
+	}
+
+	@Override
+	public Mono<Book> update(Book book) {
+		if( book == null || book.getId() == null ) {
+			return Mono.error(new IllegalArgumentException("Book id cant be null"));
+		}
+		return repository.save(touch(BookRecord.of(book)))
+				.map(BookRecord::toBook)
+				.doOnNext(saved -> changed(BookChangedEvent.saved(saved)));
+	}
+
+	@Override
+	public Flux<Book> find(Book filter, Sort sort) {
+		return repository.find(BookRecord.of(filter), sort).map(BookRecord::toBook);
+	}
+
+	@Override
+	public Mono<Page<Book>> find(Book filter, Pageable pageRequest) {
+		BookRecord example = BookRecord.of(filter);
+		return Mono.zip(repository.find(example, pageRequest).map(BookRecord::toBook).collectList(), repository.count(example))
+				.map(result -> new PageImpl<>(result.getT1(), pageRequest, result.getT2()));
+	}
+
+	@Override
+	public Flux<Book> findAfter(Book filter, Long afterId, int size) {
+		return repository.findAfter(BookRecord.of(filter), afterId, size).map(BookRecord::toBook);
+	}
+
+	// as escritas via R2DBC não passam pelo Hibernate, então o cache de segundo nível do JPA é limpo aqui
+	private void changed(BookChangedEvent event) {
+		Cache cache = entityManagerFactory.getCache();
+		event.getIds().forEach(id -> cache.evict(Book.class, id));
+		entityManagerFactory.unwrap(SessionFactory.class).getCache().evictQueryRegions();
+		publisher.publishEvent(event);
+	}
+
+	private static BookRecord touch(BookRecord book) {
+		book.setLastModified(Instant.now());
+		return book;
+	}
+
+}
@@ -0,0 +1,94 @@
+package com.jps.libraryapi.service.isbn;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Filtro de Bloom de ISBNs: "não contém" é certo, "contém" pode ser falso positivo.
+ * Os bits ficam num AtomicLongArray, então inclusões e consultas concorrentes não usam lock.
+ */
+public class IsbnBloomFilter {
+
+	private final AtomicLongArray words;
+	private final long bits;
+	private final int hashes;
+	private final LongAdder insertions = new LongAdder();
+
+	public IsbnBloomFilter(long expectedInsertions, double falsePositiveRate) {
+		long n = Math.max(1, expectedInsertions);
+		long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+		this.words = new AtomicLongArray(Math.toIntExact((m + 63) / 64));
+		this.bits = words.length() * 64l;
+		this.hashes = Math.max(1, (int) Math.round((double) bits / n * Math.log(2)));
+	}
+
+	public void add(String isbn) {
+		long hash = hash(isbn);
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32);
+		for (int i = 1; i <= hashes; i++) {
+			long bit = index(h1 + i * h2);
+			long mask = 1l << bit;
+			int word = (int) (bit >>> 6);
+			long current;
+			do {
+				current = words.get(word);
+				if( (current & mask) != 0 ) {
+					break;
+				}
+			} while( !words.compareAndSet(word, current, current | mask) );
+		}
+		insertions.increment();
+	}
+
+	public boolean mightContain(String isbn) {
+		long hash = hash(isbn);
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32);
+		for (int i = 1; i <= hashes; i++) {
+			long bit = index(h1 + i * h2);
+			if( (words.get((int) (bit >>> 6)) & (1l << bit)) == 0 ) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	public long bitSize() {
+		return bits;
+	}
+
+	public int hashCount() {
+		return hashes;
+	}
+
+	public long insertions() {
+		return insertions.sum();
+	}
+
+	// taxa de falso positivo esperada para as inclusões feitas até agora: (1 - e^(-kn/m))^k
+	public double expectedFalsePositiveRate() {
+		return Math.pow(1 - Math.exp(-hashes * (double) insertions() / bits), hashes);
+	}
+
+	private long index(int combined) {
+		// o sinal é descartado para cair sempre dentro do vetor
+		return (combined & Integer.MAX_VALUE) % bits;
+	}
+
+	// FNV-1a de 64 bits com a mistura final do MurmurHash3, para espalhar bem ISBNs quase iguais
+	private static long hash(String isbn) {
+		long hash = 0xcbf29ce484222325l;
+		for (int i = 0; i < isbn.length(); i++) {
+			hash ^= isbn.charAt(i);
+			hash *= 0x100000001b3l;
+		}
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdl;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb9fe1a85ec53l;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+
+}
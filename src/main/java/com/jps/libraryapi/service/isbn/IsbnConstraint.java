@@ -0,0 +1,34 @@
+package com.jps.libraryapi.service.isbn;
+
+import java.util.Locale;
+
+import org.springframework.dao.DataIntegrityViolationException;
+
+import com.jps.libraryapi.model.entity.Book;
+
+/**
+ * Reconhece a violação do índice único de ISBN, venha ela do Hibernate ou do R2DBC.
+ */
+public final class IsbnConstraint {
+
+	private IsbnConstraint() {
+	}
+
+	public static boolean isViolation(Throwable exception) {
+		if( !(exception instanceof DataIntegrityViolationException) ) {
+			return false;
+		}
+		// o nome do índice aparece na mensagem do driver; a causa mais interna é a do banco
+		for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+			String message = cause.getMessage();
+			if( message != null && message.toLowerCase(Locale.ROOT).contains(Book.ISBN_UNIQUE) ) {
+				return true;
+			}
+			if( cause.getCause() == cause ) {
+				break;
+			}
+		}
+		return false;
+	}
+
+}
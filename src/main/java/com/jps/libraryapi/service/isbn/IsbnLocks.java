@@ -0,0 +1,28 @@
+package com.jps.libraryapi.service.isbn;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Locks por ISBN em faixas fixas: cadastros do mesmo ISBN se enfileiram, os demais só disputam
+ * quando caem na mesma faixa. Vale só dentro do processo; entre instâncias quem garante é o índice único.
+ */
+public class IsbnLocks {
+
+	private final Lock[] stripes;
+
+	public IsbnLocks(int stripes) {
+		this.stripes = new Lock[Math.max(1, stripes)];
+		for (int i = 0; i < this.stripes.length; i++) {
+			this.stripes[i] = new ReentrantLock();
+		}
+	}
+
+	public Lock get(String isbn) {
+		int hash = isbn == null ? 0 : isbn.hashCode();
+		// espalha os bits altos, como o HashMap
+		hash ^= hash >>> 16;
+		return stripes[(hash & Integer.MAX_VALUE) % stripes.length];
+	}
+
+}
@@ -0,0 +1,186 @@
+package com.jps.libraryapi.service.isbn;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.jps.libraryapi.model.entity.Book;
+import com.jps.libraryapi.model.repository.BookRepository;
+import com.jps.libraryapi.service.event.BookChangedEvent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * ISBNs cadastrados num filtro de Bloom, para o cadastro só ir ao banco quando o ISBN provavelmente existe.
+ * Enquanto a carga inicial não termina, tudo é tratado como "provável" e a consulta ao banco continua.
+ * Deletes não saem do filtro; a reconstrução periódica descarta esses ISBNs.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "library.isbn-filter.enabled", havingValue = "true")
+public class KnownIsbns {
+
+	public static final String CHECKS = "library.isbn.filter.checks";
+	public static final String FALSE_POSITIVES = "library.isbn.filter.false.positives";
+
+	private final BookRepository repository;
+	private final TransactionTemplate transactionTemplate;
+	private final long expectedInsertions;
+	private final double falsePositiveRate;
+
+	private final Counter absent;
+	private final Counter probable;
+	private final Counter falsePositives;
+
+	private volatile IsbnBloomFilter filter;
+	// filtro em reconstrução: recebe as inclusões feitas enquanto o banco é lido
+	private IsbnBloomFilter rebuilding;
+	private volatile boolean ready;
+	private final AtomicLong deletedSinceBuild = new AtomicLong();
+
+	public KnownIsbns(BookRepository repository, PlatformTransactionManager transactionManager, MeterRegistry registry,
+			@Value("${library.isbn-filter.expected-insertions:1000000}") long expectedInsertions,
+			@Value("${library.isbn-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+		this.repository = repository;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		// sem read-only de propósito: com a réplica de leitura habilitada, a carga precisa ler do primário
+		// (a consulta já usa o hint readOnly do Hibernate)
+		this.expectedInsertions = expectedInsertions;
+		this.falsePositiveRate = falsePositiveRate;
+		this.filter = new IsbnBloomFilter(expectedInsertions, falsePositiveRate);
+
+		this.absent = Counter.builder(CHECKS).tag("result", "absent").register(registry);
+		this.probable = Counter.builder(CHECKS).tag("result", "probable").register(registry);
+		this.falsePositives = Counter.builder(FALSE_POSITIVES)
+				.description("Consultas ao banco em que o filtro disse provável e o ISBN não existia")
+				.register(registry);
+		Gauge.builder("library.isbn.filter.memory", this, known -> known.filter.bitSize() / 8d)
+				.baseUnit("bytes")
+				.register(registry);
+		Gauge.builder("library.isbn.filter.expected.fpp", this, known -> known.filter.expectedFalsePositiveRate())
+				.register(registry);
+		Gauge.builder("library.isbn.filter.insertions", this, known -> known.filter.insertions())
+				.register(registry);
+	}
+
+	public boolean isReady() {
+		return ready;
+	}
+
+	public boolean mightContain(String isbn) {
+		if( ready && !filter.mightContain(isbn) ) {
+			absent.increment();
+			return false;
+		}
+		probable.increment();
+		return true;
+	}
+
+	// só vai ao banco quando o filtro não descarta o ISBN
+	public boolean exists(String isbn, Predicate<String> database) {
+		if( !mightContain(isbn) ) {
+			return false;
+		}
+		boolean exists = database.test(isbn);
+		if( !exists && ready ) {
+			falsePositives.increment();
+		}
+		return exists;
+	}
+
+	// devolve só os ISBNs que precisam ser conferidos no banco
+	public List<String> probable(Collection<String> isbns) {
+		return isbns.stream().filter(this::mightContain).collect(Collectors.toList());
+	}
+
+	public void falsePositives(long count) {
+		if( ready ) {
+			falsePositives.increment(count);
+		}
+	}
+
+	public void add(String isbn) {
+		if( isbn == null ) {
+			return;
+		}
+		synchronized (this) {
+			filter.add(isbn);
+			if( rebuilding != null ) {
+				rebuilding.add(isbn);
+			}
+		}
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onBookChanged(BookChangedEvent event) {
+		if( event.getType() == BookChangedEvent.Type.SAVED ) {
+			event.getBooks().forEach(book -> add(book.getIsbn()));
+		} else if( event.getType() == BookChangedEvent.Type.DELETED ) {
+			deletedSinceBuild.addAndGet(event.getIds().size());
+		}
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void load() {
+		rebuild();
+	}
+
+	@Scheduled(initialDelayString = "${library.isbn-filter.rebuild-interval:PT1H}",
+			fixedDelayString = "${library.isbn-filter.rebuild-interval:PT1H}")
+	public void rebuildIfDeleted() {
+		if( deletedSinceBuild.get() > 0 ) {
+			rebuild();
+		}
+	}
+
+	public void rebuild() {
+		long start = System.currentTimeMillis();
+		long deleted = deletedSinceBuild.get();
+		long count = transactionTemplate.execute(status -> repository.count());
+		// folga para crescer até a próxima reconstrução sem estourar a taxa de falso positivo
+		IsbnBloomFilter fresh = new IsbnBloomFilter(Math.max(expectedInsertions, count * 2), falsePositiveRate);
+		synchronized (this) {
+			rebuilding = fresh;
+		}
+		try {
+			transactionTemplate.execute(status -> {
+				try (Stream<String> isbns = repository.streamIsbns()) {
+					isbns.forEach(isbn -> {
+						if( isbn != null ) {
+							fresh.add(isbn);
+						}
+					});
+				}
+				return null;
+			});
+			synchronized (this) {
+				filter = fresh;
+			}
+			deletedSinceBuild.addAndGet(-deleted);
+			ready = true;
+			log.info("Filtro de ISBNs reconstruído com {} ISBNs ({} bytes) em {} ms",
+					fresh.insertions(), fresh.bitSize() / 8, System.currentTimeMillis() - start);
+		} finally {
+			synchronized (this) {
+				rebuilding = null;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,104 @@
+package com.jps.libraryapi.service.search;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.jps.libraryapi.model.entity.Book;
+import com.jps.libraryapi.service.event.BookChangedEvent;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Cache dos resultados de BookService.find: páginas e contagens ficam em caches separados,
+ * ambos com a geração de escrita na chave. Qualquer alteração de livro só incrementa a geração;
+ * as entradas antigas deixam de ser encontradas e saem por tamanho ou tempo.
+ */
+@Component
+@ConditionalOnProperty(name = "library.query-cache.enabled", havingValue = "true")
+public class BookQueryCache {
+
+	public static final String PAGES = "books.find.pages";
+	public static final String COUNTS = "books.find.counts";
+
+	private final AtomicLong generation = new AtomicLong();
+	private final Cache<List<Object>, List<Book>> pages;
+	private final Cache<List<Object>, Long> counts;
+
+	public BookQueryCache(MeterRegistry registry,
+			@Value("${library.query-cache.max-books:50000}") long maxBooks,
+			@Value("${library.query-cache.max-counts:10000}") long maxCounts,
+			@Value("${library.query-cache.ttl:5m}") Duration ttl) {
+		// o peso é a quantidade de livros da página, assim o limite vale para a memória e não para o número de páginas
+		this.pages = Caffeine.newBuilder()
+				.maximumWeight(maxBooks)
+				.<List<Object>, List<Book>>weigher((key, books) -> books.size() + 1)
+				.expireAfterWrite(ttl)
+				.recordStats()
+				.build();
+		this.counts = Caffeine.newBuilder()
+				.maximumSize(maxCounts)
+				.expireAfterWrite(ttl)
+				.recordStats()
+				.build();
+
+		CaffeineCacheMetrics.monitor(registry, pages, PAGES);
+		CaffeineCacheMetrics.monitor(registry, counts, COUNTS);
+		Gauge.builder("books.find.generation", generation, AtomicLong::get).register(registry);
+	}
+
+	public Page<Book> find(Book filter, Pageable pageable, Supplier<List<Book>> content, Supplier<Long> count) {
+		// a geração é lida antes da consulta: se houver escrita no meio, o resultado fica numa geração já descartada
+		long current = generation.get();
+		List<Object> filterKey = filterKey(current, filter);
+		List<Object> pageKey = Arrays.asList(filterKey, pageable);
+
+		List<Book> books = pages.getIfPresent(pageKey);
+		if( books == null ) {
+			books = content.get();
+			pages.put(pageKey, books);
+		}
+		return PageableExecutionUtils.getPage(books, pageable, () -> {
+			Long total = counts.getIfPresent(filterKey);
+			if( total == null ) {
+				total = count.get();
+				counts.put(filterKey, total);
+			}
+			return total;
+		});
+	}
+
+	public long generation() {
+		return generation.get();
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onBookChanged(BookChangedEvent event) {
+		generation.incrementAndGet();
+	}
+
+	// o filtro compara ignorando maiúsculas, então "Janaina" e "janaina" dividem a mesma entrada
+	private static List<Object> filterKey(long generation, Book filter) {
+		return Arrays.asList(generation, filter.getId(), lower(filter.getTitle()), lower(filter.getAuthor()), lower(filter.getIsbn()));
+	}
+
+	private static String lower(String value) {
+		return value == null ? null : value.toLowerCase(Locale.ROOT);
+	}
+
+}
@@ -0,0 +1,106 @@
+package com.jps.libraryapi.service.search;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.jps.libraryapi.model.entity.Book;
+import com.jps.libraryapi.model.repository.BookRepository;
+import com.jps.libraryapi.service.event.BookChangedEvent;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "library.search.index.enabled", havingValue = "true")
+public class BookSearchIndex {
+
+	private final BookTrigramIndex index = new BookTrigramIndex();
+	private final BookRepository repository;
+	private final TransactionTemplate transactionTemplate;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	private volatile boolean ready;
+	private Set<Long> touchedWhileRebuilding;
+
+	public BookSearchIndex(BookRepository repository, PlatformTransactionManager transactionManager) {
+		this.repository = repository;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		// sem read-only de propósito: com a réplica de leitura habilitada, a carga precisa ler do primário
+		// (a consulta já usa o hint readOnly do Hibernate)
+	}
+
+	public boolean isReady() {
+		return ready;
+	}
+
+	public boolean supports(Pageable pageable) {
+		return ready && index.supports(pageable);
+	}
+
+	public Page<Long> search(Book filter, Pageable pageable) {
+		return index.search(filter, pageable);
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void rebuild() {
+		long start = System.currentTimeMillis();
+		ready = false;
+		synchronized (this) {
+			touchedWhileRebuilding = new HashSet<>();
+		}
+		index.clear();
+
+		transactionTemplate.execute(status -> {
+			try (Stream<Book> books = repository.streamAll()) {
+				books.forEach(book -> {
+					synchronized (this) {
+						if( !touchedWhileRebuilding.contains(book.getId()) ) {
+							index.put(book);
+						}
+					}
+					entityManager.detach(book);
+				});
+			}
+			return null;
+		});
+
+		synchronized (this) {
+			touchedWhileRebuilding = null;
+		}
+		ready = true;
+		log.info("Indice de busca reconstruido com {} livros em {} ms", index.size(), System.currentTimeMillis() - start);
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public synchronized void onBookChanged(BookChangedEvent event) {
+		if( touchedWhileRebuilding != null ) {
+			touchedWhileRebuilding.addAll(event.getIds());
+		}
+		if( event.getType() == BookChangedEvent.Type.SAVED ) {
+			List<Book> books = event.getBooks();
+			books.forEach(index::put);
+		} else if( event.getType() == BookChangedEvent.Type.PATCHED ) {
+			event.getBooks().forEach(index::merge);
+		} else {
+			event.getIds().forEach(index::remove);
+		}
+	}
+
+}
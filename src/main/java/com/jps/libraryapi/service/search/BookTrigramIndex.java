@@ -0,0 +1,318 @@
+package com.jps.libraryapi.service.search;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import com.jps.libraryapi.model.entity.Book;
+
+/**
+ * Índice invertido de trigramas sobre title/author/isbn. Reproduz a semântica do Example usado em
+ * {@code BookServiceImpl.find} (contém, ignorando maiúsculas, campos nulos ignorados) sem varrer a tabela:
+ * as listas de postagem dos trigramas da consulta são intersectadas e só os candidatos são conferidos.
+ * Cada lista é um {@link PostingList}: o índice ocupa memória pelo número de postagens, e os trigramas
+ * raros, que são a maioria, custam poucos bytes cada.
+ */
+public class BookTrigramIndex {
+
+	private static final int GRAM = 3;
+
+	private enum Field {
+		TITLE(Book::getTitle), AUTHOR(Book::getAuthor), ISBN(Book::getIsbn);
+
+		private final Function<Book, String> getter;
+
+		Field(Function<Book, String> getter) {
+			this.getter = getter;
+		}
+	}
+
+	private static final class Doc {
+		final long id;
+		final String[] values = new String[Field.values().length];
+		final String[] lowerValues = new String[Field.values().length];
+
+		Doc(Book book) {
+			this.id = book.getId();
+			for (Field field : Field.values()) {
+				String value = field.getter.apply(book);
+				values[field.ordinal()] = value;
+				lowerValues[field.ordinal()] = value == null ? null : lower(value);
+			}
+		}
+	}
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private final List<Doc> docs = new ArrayList<>();
+	private final Deque<Integer> freeSlots = new ArrayDeque<>();
+	private final Map<Long, Integer> slotsById = new HashMap<>();
+	private final BitSet live = new BitSet();
+	private final List<Map<String, PostingList>> postings = new ArrayList<>();
+
+	public BookTrigramIndex() {
+		for (int i = 0; i < Field.values().length; i++) {
+			postings.add(new HashMap<>());
+		}
+	}
+
+	public void put(Book book) {
+		lock.writeLock().lock();
+		try {
+			removeUnlocked(book.getId());
+
+			Doc doc = new Doc(book);
+			int slot;
+			if( freeSlots.isEmpty() ) {
+				slot = docs.size();
+				docs.add(doc);
+			} else {
+				slot = freeSlots.pop();
+				docs.set(slot, doc);
+			}
+			slotsById.put(doc.id, slot);
+			live.set(slot);
+
+			for (Field field : Field.values()) {
+				String value = doc.lowerValues[field.ordinal()];
+				if( value != null ) {
+					Map<String, PostingList> fieldPostings = postings.get(field.ordinal());
+					for (int i = 0; i + GRAM <= value.length(); i++) {
+						fieldPostings.computeIfAbsent(value.substring(i, i + GRAM), gram -> new PostingList()).add(slot);
+					}
+				}
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	// aplica só os campos não nulos sobre o livro já indexado
+	public void merge(Book changes) {
+		lock.writeLock().lock();
+		try {
+			Integer slot = slotsById.get(changes.getId());
+			if( slot == null ) {
+				return;
+			}
+			Doc doc = docs.get(slot);
+			Book merged = Book.builder()
+					.id(changes.getId())
+					.title(changes.getTitle() != null ? changes.getTitle() : doc.values[Field.TITLE.ordinal()])
+					.author(changes.getAuthor() != null ? changes.getAuthor() : doc.values[Field.AUTHOR.ordinal()])
+					.isbn(changes.getIsbn() != null ? changes.getIsbn() : doc.values[Field.ISBN.ordinal()])
+					.build();
+			put(merged);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public void remove(Long id) {
+		lock.writeLock().lock();
+		try {
+			removeUnlocked(id);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public void clear() {
+		lock.writeLock().lock();
+		try {
+			docs.clear();
+			freeSlots.clear();
+			slotsById.clear();
+			live.clear();
+			postings.forEach(Map::clear);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return slotsById.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	public boolean supports(Pageable pageable) {
+		for (Sort.Order order : pageable.getSort()) {
+			if( !"id".equals(order.getProperty()) && fieldOf(order.getProperty()) == null ) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	public Page<Long> search(Book filter, Pageable pageable) {
+		List<Doc> matches = new ArrayList<>();
+
+		lock.readLock().lock();
+		try {
+			for (int slot : candidates(filter)) {
+				Doc doc = docs.get(slot);
+				if( matches(doc, filter) ) {
+					matches.add(doc);
+				}
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+
+		matches.sort(comparator(pageable.getSort()));
+
+		List<Long> ids = new ArrayList<>();
+		if( pageable.isPaged() ) {
+			int from = (int) Math.min(pageable.getOffset(), matches.size());
+			int to = Math.min(from + pageable.getPageSize(), matches.size());
+			matches.subList(from, to).forEach(doc -> ids.add(doc.id));
+		} else {
+			matches.forEach(doc -> ids.add(doc.id));
+		}
+		return new PageImpl<>(ids, pageable, matches.size());
+	}
+
+	private void removeUnlocked(Long id) {
+		Integer slot = slotsById.remove(id);
+		if( slot == null ) {
+			return;
+		}
+		Doc doc = docs.get(slot);
+		for (Field field : Field.values()) {
+			String value = doc.lowerValues[field.ordinal()];
+			if( value != null ) {
+				Map<String, PostingList> fieldPostings = postings.get(field.ordinal());
+				for (int i = 0; i + GRAM <= value.length(); i++) {
+					String gram = value.substring(i, i + GRAM);
+					PostingList posting = fieldPostings.get(gram);
+					if( posting != null ) {
+						posting.remove(slot);
+						if( posting.isEmpty() ) {
+							fieldPostings.remove(gram);
+						}
+					}
+				}
+			}
+		}
+		docs.set(slot, null);
+		live.clear(slot);
+		freeSlots.push(slot);
+	}
+
+	// slots candidatos em ordem crescente: a menor lista da consulta intersectada com as demais
+	private int[] candidates(Book filter) {
+		List<PostingList> lists = new ArrayList<>();
+		for (Field field : Field.values()) {
+			String value = field.getter.apply(filter);
+			if( value == null || value.length() < GRAM ) {
+				continue;
+			}
+			String query = lower(value);
+			Map<String, PostingList> fieldPostings = postings.get(field.ordinal());
+			for (int i = 0; i + GRAM <= query.length(); i++) {
+				PostingList posting = fieldPostings.get(query.substring(i, i + GRAM));
+				if( posting == null ) {
+					return new int[0];
+				}
+				lists.add(posting);
+			}
+		}
+
+		int[] candidates;
+		if( filter.getId() != null ) {
+			Integer slot = slotsById.get(filter.getId());
+			candidates = slot == null ? new int[0] : new int[] { slot };
+		} else if( lists.isEmpty() ) {
+			return live.stream().toArray();
+		} else {
+			lists.sort(Comparator.comparingInt(PostingList::size));
+			candidates = lists.remove(0).toArray();
+		}
+		int count = candidates.length;
+		for (int i = 0; i < lists.size() && count > 0; i++) {
+			count = lists.get(i).retainAll(candidates, count);
+		}
+		return Arrays.copyOf(candidates, count);
+	}
+
+	// bytes das listas de postagem, sem as chaves
+	long postingFootprint() {
+		lock.readLock().lock();
+		try {
+			long bytes = 0;
+			for (Map<String, PostingList> fieldPostings : postings) {
+				for (PostingList posting : fieldPostings.values()) {
+					bytes += posting.footprint();
+				}
+			}
+			return bytes;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private boolean matches(Doc doc, Book filter) {
+		for (Field field : Field.values()) {
+			String value = field.getter.apply(filter);
+			if( value == null ) {
+				continue;
+			}
+			String indexed = doc.lowerValues[field.ordinal()];
+			if( indexed == null || !indexed.contains(lower(value)) ) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private Comparator<Doc> comparator(Sort sort) {
+		Comparator<Doc> comparator = null;
+		for (Sort.Order order : sort) {
+			Comparator<Doc> next;
+			Field field = fieldOf(order.getProperty());
+			if( field == null ) {
+				next = Comparator.comparingLong(doc -> doc.id);
+			} else {
+				next = Comparator.comparing(doc -> doc.values[field.ordinal()], Comparator.nullsFirst(Comparator.<String>naturalOrder()));
+			}
+			if( order.isDescending() ) {
+				next = next.reversed();
+			}
+			comparator = comparator == null ? next : comparator.thenComparing(next);
+		}
+		Comparator<Doc> byId = Comparator.comparingLong(doc -> doc.id);
+		return comparator == null ? byId : comparator.thenComparing(byId);
+	}
+
+	private static Field fieldOf(String property) {
+		for (Field field : Field.values()) {
+			if( field.name().equalsIgnoreCase(property) ) {
+				return field;
+			}
+		}
+		return null;
+	}
+
+	private static String lower(String value) {
+		return value.toLowerCase(Locale.ROOT);
+	}
+
+}
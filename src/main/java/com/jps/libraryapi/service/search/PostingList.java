@@ -0,0 +1,82 @@
+package com.jps.libraryapi.service.search;
+
+import java.util.Arrays;
+
+/**
+ * Lista de postagem de um trigrama: os slots em ordem crescente num int[]. Ocupa 4 bytes por livro que
+ * contém o trigrama, não importa em que slot ele esteja (um BitSet cresce até o maior slot marcado).
+ */
+final class PostingList {
+
+	private int[] slots = new int[2];
+	private int size;
+	
+	void add(int slot) {
+		int i = Arrays.binarySearch(slots, 0, size, slot);
+		if( i >= 0 ) {
+			return;
+		}
+		i = -i - 1;
+		if( size == slots.length ) {
+			slots = Arrays.copyOf(slots, size + (size >> 1) + 1);
+		}
+		System.arraycopy(slots, i, slots, i + 1, size - i);
+		slots[i] = slot;
+		size++;
+	}
+	
+	void remove(int slot) {
+		int i = Arrays.binarySearch(slots, 0, size, slot);
+		if( i < 0 ) {
+			return;
+		}
+		System.arraycopy(slots, i + 1, slots, i, size - i - 1);
+		size--;
+		if( slots.length > 8 && size < slots.length / 4 ) {
+			slots = Arrays.copyOf(slots, slots.length / 2);
+		}
+	}
+	
+	boolean isEmpty() {
+		return size == 0;
+	}
+	
+	int size() {
+		return size;
+	}
+	
+	int[] toArray() {
+		return Arrays.copyOf(slots, size);
+	}
+	
+	// bytes do array de slots, para medir o índice
+	long footprint() {
+		return 16 + 4L * slots.length;
+	}
+	
+	/**
+	 * Mantém em candidates (ordenado, os count primeiros) só os slots desta lista e devolve quantos
+	 * sobraram. A busca avança em saltos exponenciais a partir do último achado, então intersectar uma
+	 * lista curta com uma longa custa pelo tamanho da curta, não da longa.
+	 */
+	int retainAll(int[] candidates, int count) {
+		int kept = 0;
+		int from = 0;
+		for (int c = 0; c < count && from < size; c++) {
+			int target = candidates[c];
+			int bound = 1;
+			while( from + bound < size && slots[from + bound] < target ) {
+				bound <<= 1;
+			}
+			int i = Arrays.binarySearch(slots, from + (bound >> 1), Math.min(from + bound + 1, size), target);
+			if( i >= 0 ) {
+				candidates[kept++] = target;
+				from = i + 1;
+			} else {
+				from = -i - 1;
+			}
+		}
+		return kept;
+	}
+	
+}
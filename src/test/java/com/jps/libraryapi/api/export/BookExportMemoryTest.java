@@ -0,0 +1,97 @@
+package com.jps.libraryapi.api.export;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.jps.libraryapi.model.entity.Book;
+import com.jps.libraryapi.model.repository.BookRepository;
+import com.jps.libraryapi.service.BookService;
+
+// H2 em arquivo: o milhão de linhas fica em disco, e o heap medido é só o do export
+@ActiveProfiles("teste")
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:file:./target/h2/book-export;CACHE_SIZE=8192",
+		"spring.jpa.hibernate.ddl-auto=create-drop" })
+public class BookExportMemoryTest {
+	
+	static final int ROWS = 1_000_000;
+	static final int SAMPLE_EVERY = 100_000;
+	static final long MAX_GROWTH = 32 * 1024 * 1024;
+	
+	@Autowired
+	BookService service;
+	
+	@Autowired
+	BookRepository repository;
+	
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+	
+	// gerado no próprio banco, sem passar as linhas pelo heap do teste
+	@BeforeEach
+	public void setUp() {
+		jdbcTemplate.update("insert into book (id, title, author, isbn, version, last_modified) "
+				+ "select x, 'Titulo ' || x, 'Autor, ' || x, 'isbn-' || x, 0, current_timestamp() from system_range(1, ?)", ROWS);
+	}
+	
+	@AfterEach
+	public void tearDown() {
+		repository.deleteAllInBatch();
+	}
+	
+	@Test
+	@DisplayName("Deve exportar um milhão de livros do banco com uso de memória constante.")
+	public void exportMillionRowsWithBoundedHeapTest() throws Exception {
+		CountingOutputStream out = new CountingOutputStream();
+		long baseline = usedHeapAfterGc();
+		long[] peak = { baseline };
+		AtomicLong rows = new AtomicLong();
+		
+		for (BookExportFormat format : BookExportFormat.values()) {
+			try (BookExportWriter writer = format.open(out)) {
+				service.export(new Book(), book -> {
+					writer.accept(book);
+					if( rows.incrementAndGet() % SAMPLE_EVERY == 0 ) {
+						peak[0] = Math.max(peak[0], usedHeapAfterGc());
+					}
+				});
+			}
+		}
+		
+		assertThat(rows.get()).isEqualTo(2L * ROWS);
+		assertThat(out.count).isGreaterThan(2L * ROWS * 30);
+		assertThat(peak[0] - baseline).isLessThan(MAX_GROWTH);
+	}
+	
+	private static long usedHeapAfterGc() {
+		Runtime runtime = Runtime.getRuntime();
+		System.gc();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+	
+	static class CountingOutputStream extends OutputStream {
+		long count;
+		
+		@Override
+		public void write(int b) {
+			count++;
+		}
+		
+		@Override
+		public void write(byte[] b, int off, int len) {
+			count += len;
+		}
+	}
+	
+}
@@ -0,0 +1,276 @@
+package com.jps.libraryapi.api.imports;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.validation.Validator;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import com.jps.libraryapi.api.dto.BookImportDTO;
+import com.jps.libraryapi.model.entity.Book;
+import com.jps.libraryapi.model.repository.BookRepository;
+import com.jps.libraryapi.service.BookService;
+import com.jps.libraryapi.service.event.BookChangedEvent;
+
+import lombok.extern.slf4j.Slf4j;
+
+// H2 em arquivo: as linhas importadas ficam em disco e não contam no pico de heap da importação
+@Slf4j
+@ActiveProfiles("teste")
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:file:./target/h2/book-import;CACHE_SIZE=8192",
+		"spring.jpa.hibernate.ddl-auto=create-drop" })
+@AutoConfigureMockMvc
+public class BookImporterTest {
+	
+	// só o tamanho de cada lote gravado: guardar os eventos prenderia os livros importados na memória
+	@TestConfiguration
+	static class SavedChunks {
+		final List<Integer> sizes = new CopyOnWriteArrayList<>();
+		
+		@EventListener
+		void saved(BookChangedEvent event) {
+			if( event.getType() == BookChangedEvent.Type.SAVED ) {
+				sizes.add(event.getIds().size());
+			}
+		}
+	}
+	
+	@Autowired
+	BookService service;
+	
+	@Autowired
+	Validator validator;
+	
+	@Autowired
+	BookRepository repository;
+	
+	@Autowired
+	BookImportRegistry registry;
+	
+	@Autowired
+	SavedChunks savedChunks;
+	
+	@Autowired
+	MockMvc mvc;
+	
+	@AfterEach
+	public void tearDown() {
+		repository.deleteAllInBatch();
+		savedChunks.sizes.clear();
+	}
+	
+	@Test
+	@DisplayName("Deve importar um CSV em lotes rejeitando linhas inválidas e isbn duplicados.")
+	public void importCsvTest() throws Exception {
+		repository.save(Book.builder().isbn("002").title("Aventuras").author("Artur").build());
+		BookImporter importer = new BookImporter(service, validator, registry, 2, 100, 1, 1);
+		
+		String csv = "isbn,title,author\n"
+				+ "001,Maravilha,Janaina\n"
+				+ "002,\"Aventuras, volume 2\",Artur\n"
+				+ ",Sem isbn,Artur\n"
+				+ "003,\"Linha\nquebrada\",Janaina\n";
+		
+		BookImportDTO result = importer.run(BookRowReader.open("csv", stream(csv))).toDTO();
+		
+		assertThat(result.getStatus()).isEqualTo("COMPLETED");
+		assertThat(result.getRead()).isEqualTo(4);
+		assertThat(result.getImported()).isEqualTo(2);
+		assertThat(result.getRejected()).isEqualTo(2);
+		assertThat(result.getRejections()).extracting("line").containsExactlyInAnyOrder(3l, 4l);
+		assertThat(repository.findAll()).extracting(Book::getTitle)
+			.containsExactlyInAnyOrder("Aventuras", "Maravilha", "Linha\nquebrada");
+		// dois lotes de até 2 linhas válidas: 001 (o 002 já existia) e 003
+		assertThat(savedChunks.sizes).containsExactly(1, 1);
+		
+		importer.shutdown();
+	}
+	
+	@Test
+	@DisplayName("Deve importar livros em NDJSON.")
+	public void importNdjsonTest() throws Exception {
+		BookImporter importer = new BookImporter(service, validator, registry, 1000, 100, 1, 1);
+		
+		String ndjson = "{\"title\":\"Maravilha\",\"author\":\"Janaina\",\"isbn\":\"001\"}\n"
+				+ "{\"title\":\"Aventuras\",\"author\":\"Artur\",\"isbn\":\"002\",\"extra\":1}\n";
+		
+		BookImportJob job = importer.run(BookRowReader.open("ndjson", stream(ndjson)));
+		
+		assertThat(job.toDTO().getImported()).isEqualTo(2);
+		assertThat(repository.count()).isEqualTo(2);
+		assertThat(registry.get(job.getId())).contains(job);
+		
+		importer.shutdown();
+	}
+	
+	@Test
+	@DisplayName("Deve rejeitar a linha NDJSON inválida e seguir importando as demais.")
+	public void importMalformedNdjsonTest() throws Exception {
+		BookImporter importer = new BookImporter(service, validator, registry, 1000, 100, 1, 1);
+		
+		String ndjson = "{\"title\":\"Maravilha\",\"author\":\"Janaina\",\"isbn\":\"001\"}\n"
+				+ "{\"title\":\"Quebrado\",\n"
+				+ "\n"
+				+ "{\"title\":\"Aventuras\",\"author\":\"Artur\",\"isbn\":\"002\"}\n";
+		
+		BookImportDTO result = importer.run(BookRowReader.open("ndjson", stream(ndjson))).toDTO();
+		
+		assertThat(result.getStatus()).isEqualTo("COMPLETED");
+		assertThat(result.getRead()).isEqualTo(3);
+		assertThat(result.getImported()).isEqualTo(2);
+		assertThat(result.getRejections()).extracting("line").containsExactly(2l);
+		assertThat(repository.count()).isEqualTo(2);
+		
+		importer.shutdown();
+	}
+	
+	@Test
+	@DisplayName("Deve responder 202 antes de ler o corpo e entregar o resultado ao fim da importação.")
+	public void importAcceptedTest() throws Exception {
+		String csv = "isbn,title,author\n001,Maravilha,Janaina\n002,Aventuras,Artur\n";
+		
+		MvcResult result = mvc.perform(MockMvcRequestBuilders.post("/api/books/imports").param("format", "csv")
+				.contentType(MediaType.TEXT_PLAIN)
+				.content(csv))
+			.andExpect( request().asyncStarted() )
+			.andExpect( status().isAccepted() )
+			.andReturn();
+		assertThat(result.getResponse().isCommitted()).isTrue();
+		String location = result.getResponse().getHeader("Location");
+		String id = location.substring(location.lastIndexOf('/') + 1);
+		assertThat(location).endsWith("/api/books/imports/" + id);
+		
+		BookImportDTO job = await(registry.get(id).get());
+		assertThat(job.getStatus()).isEqualTo("COMPLETED");
+		assertThat(job.getImported()).isEqualTo(2);
+		mvc.perform(asyncDispatch(result))
+			.andExpect( status().isAccepted() )
+			.andExpect( jsonPath("id").value(id) )
+			.andExpect( jsonPath("status").value("COMPLETED") )
+			.andExpect( jsonPath("imported").value(2) );
+		mvc.perform(MockMvcRequestBuilders.get("/api/books/imports/" + id))
+			.andExpect( status().isOk() )
+			.andExpect( jsonPath("status").value("COMPLETED") );
+	}
+	
+	@Test
+	@DisplayName("Deve recusar com 400 um formato de importação desconhecido.")
+	public void importInvalidFormatTest() throws Exception {
+		mvc.perform(MockMvcRequestBuilders.post("/api/books/imports").param("format", "xml").content("<books/>"))
+			.andExpect( status().isBadRequest() )
+			.andExpect( header().doesNotExist("Location") );
+	}
+	
+	@Test
+	@DisplayName("Deve recusar com 400 um CSV sem as colunas obrigatórias, registrando o job como falho.")
+	public void importInvalidCsvHeaderTest() throws Exception {
+		long failed = failedJobs();
+		mvc.perform(MockMvcRequestBuilders.post("/api/books/imports").param("format", "csv").content("isbn,titulo\n001,Maravilha\n"))
+			.andExpect( status().isBadRequest() )
+			.andExpect( header().doesNotExist("Location") );
+		
+		assertThat(failedJobs()).isEqualTo(failed + 1);
+		assertThat(repository.count()).isZero();
+	}
+	
+	@Test
+	@DisplayName("Deve importar duzentas mil linhas com memória limitada, medindo a vazão.")
+	public void importHarnessTest() throws Exception {
+		int rows = 200_000;
+		BookImporter importer = new BookImporter(service, validator, registry, 1000, 100, 1, 1);
+		long baseline = usedHeapAfterGc();
+		long[] peak = { baseline };
+		int[] rowsRead = { 0 };
+		InputStream csv = new GeneratedCsvInputStream(rows, () -> {
+			if( ++rowsRead[0] % 20_000 == 0 ) {
+				peak[0] = Math.max(peak[0], usedHeapAfterGc());
+			}
+		});
+		
+		BookImportDTO result = importer.run(BookRowReader.open("csv", csv)).toDTO();
+		
+		log.info("importacao: {} linhas, {} linhas/s, pico de heap +{} KB",
+				result.getRead(), result.getRowsPerSecond(), (peak[0] - baseline) / 1024);
+		assertThat(result.getImported()).isEqualTo(rows);
+		assertThat(repository.count()).isEqualTo(rows);
+		assertThat(peak[0] - baseline).isLessThan(32 * 1024 * 1024);
+		
+		importer.shutdown();
+	}
+	
+	private static BookImportDTO await(BookImportJob job) throws InterruptedException {
+		for (int i = 0; i < 500 && job.getStatus() == BookImportJob.Status.RUNNING; i++) {
+			Thread.sleep(20);
+		}
+		return job.toDTO();
+	}
+	
+	private long failedJobs() {
+		return registry.list().stream().filter(job -> job.getStatus() == BookImportJob.Status.FAILED).count();
+	}
+	
+	private static InputStream stream(String content) {
+		return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+	}
+	
+	private static long usedHeapAfterGc() {
+		Runtime runtime = Runtime.getRuntime();
+		System.gc();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+	
+	// gera o CSV sob demanda, sem nunca ter o arquivo inteiro em memória
+	static class GeneratedCsvInputStream extends InputStream {
+		private final int rows;
+		private final Runnable onRow;
+		private int row = -1;
+		private byte[] current = new byte[0];
+		private int position;
+		
+		GeneratedCsvInputStream(int rows, Runnable onRow) {
+			this.rows = rows;
+			this.onRow = onRow;
+		}
+		
+		@Override
+		public int read() {
+			if( position == current.length ) {
+				if( ++row > rows ) {
+					return -1;
+				}
+				if( row > 0 ) {
+					onRow.run();
+				}
+				String line = row == 0 ? "title,author,isbn\n" : "Titulo " + row + ",Autor " + row + ",isbn-" + row + "\n";
+				current = line.getBytes(StandardCharsets.UTF_8);
+				position = 0;
+			}
+			return current[position++];
+		}
+	}
+	
+}
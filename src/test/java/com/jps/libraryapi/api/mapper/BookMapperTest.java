@@ -0,0 +1,42 @@
+package com.jps.libraryapi.api.mapper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+
+import com.jps.libraryapi.api.dto.BookDTO;
+import com.jps.libraryapi.model.entity.Book;
+
+public class BookMapperTest {
+	
+	ModelMapper modelMapper = new ModelMapper();
+
+	@Test
+	@DisplayName("Deve converter a entidade no mesmo DTO que o ModelMapper.")
+	public void toDtoTest() {
+		Book book = Book.builder().id(10l).title("As aventuras").author("Janaina").isbn("123").build();
+		
+		BookDTO dto = BookMapper.toDto(book);
+		
+		assertThat(dto).isEqualTo(modelMapper.map(book, BookDTO.class));
+	}
+	
+	@Test
+	@DisplayName("Deve converter o DTO na entidade tratando id zero como nulo.")
+	public void toEntityTest() {
+		BookDTO dto = BookDTO.builder().title("As aventuras").author("Janaina").isbn("123").build();
+		
+		Book book = BookMapper.toEntity(dto);
+		
+		assertThat(book.getId()).isNull();
+		assertThat(book.getTitle()).isEqualTo(dto.getTitle());
+		assertThat(book.getAuthor()).isEqualTo(dto.getAuthor());
+		assertThat(book.getIsbn()).isEqualTo(dto.getIsbn());
+		
+		dto.setId(7);
+		assertThat(BookMapper.toEntity(dto)).isEqualTo(modelMapper.map(dto, Book.class));
+	}
+	
+}
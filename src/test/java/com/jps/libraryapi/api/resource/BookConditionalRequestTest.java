@@ -0,0 +1,97 @@
+package com.jps.libraryapi.api.resource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import com.jps.libraryapi.config.CacheConfig;
+import com.jps.libraryapi.model.entity.Book;
+import com.jps.libraryapi.model.repository.BookRepository;
+
+// GET e PUT condicionais com o banco e os caches de verdade
+@ActiveProfiles("teste")
+@SpringBootTest
+@AutoConfigureMockMvc
+public class BookConditionalRequestTest {
+	
+	static final String BOOK_API = "/api/books";
+	
+	@Autowired
+	MockMvc mvc;
+	
+	@Autowired
+	BookRepository repository;
+	
+	@Autowired
+	CacheManager cacheManager;
+	
+	@AfterEach
+	public void tearDown() {
+		repository.deleteAllInBatch();
+		cacheManager.getCache(CacheConfig.BOOKS).clear();
+	}
+	
+	@Test
+	@DisplayName("Deve retornar 412 ao alterar um livro com If-Match de uma versão antiga")
+	public void updateWithStaleIfMatchTest() throws Exception {
+		Book book = repository.save(Book.builder().title("As aventuras").author("Fulano").isbn("cr-1").build());
+		String stale = "\"" + book.getVersion() + "\"";
+		
+		String current = mvc.perform(MockMvcRequestBuilders.put(BOOK_API + "/" + book.getId())
+				.contentType(MediaType.APPLICATION_JSON)
+				.header(HttpHeaders.IF_MATCH, stale)
+				.content("{\"title\":\"Primeira\",\"author\":\"Fulano\"}"))
+			.andExpect( status().isOk() )
+			.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		assertThat(current).isNotEqualTo(stale);
+		
+		mvc.perform(MockMvcRequestBuilders.put(BOOK_API + "/" + book.getId())
+				.contentType(MediaType.APPLICATION_JSON)
+				.header(HttpHeaders.IF_MATCH, stale)
+				.content("{\"title\":\"Segunda\",\"author\":\"Fulano\"}"))
+			.andExpect( status().isPreconditionFailed() );
+		
+		assertThat(repository.findById(book.getId()).get().getTitle()).isEqualTo("Primeira");
+	}
+	
+	@Test
+	@DisplayName("Deve validar o GET condicional pela versão do livro em cache")
+	public void getNotModifiedFromCacheTest() throws Exception {
+		Book book = repository.save(Book.builder().title("As aventuras").author("Fulano").isbn("cr-2").build());
+		
+		String etag = mvc.perform(MockMvcRequestBuilders.get(BOOK_API + "/" + book.getId()))
+			.andExpect( status().isOk() )
+			.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		assertThat(cacheManager.getCache(CacheConfig.BOOKS).get(book.getId())).isNotNull();
+		
+		mvc.perform(MockMvcRequestBuilders.get(BOOK_API + "/" + book.getId()).header(HttpHeaders.IF_NONE_MATCH, etag))
+			.andExpect( status().isNotModified() );
+		
+		// a alteração atualiza o cache, e a ETag antiga deixa de valer
+		String updated = mvc.perform(MockMvcRequestBuilders.put(BOOK_API + "/" + book.getId())
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"title\":\"Outro titulo\",\"author\":\"Fulano\"}"))
+			.andExpect( status().isOk() )
+			.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		
+		mvc.perform(MockMvcRequestBuilders.get(BOOK_API + "/" + book.getId()).header(HttpHeaders.IF_NONE_MATCH, etag))
+			.andExpect( status().isOk() )
+			.andExpect( header().string(HttpHeaders.ETAG, updated) )
+			.andExpect( jsonPath("title").value("Outro titulo") );
+	}
+	
+}
@@ -1,9 +1,16 @@
 package com.jps.libraryapi.api.resource;
 
+import java.time.Instant;
 import java.util.Arrays;
+import java.util.Base64;
 import java.util.Optional;
+import java.util.function.Consumer;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.assertj.core.api.Assertions;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -17,6 +24,9 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
@@ -25,17 +35,24 @@ import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilde
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
 import com.jps.libraryapi.api.dto.BookDTO;
+import com.jps.libraryapi.api.dto.BookPatchDTO;
+import com.jps.libraryapi.api.resouce.BookController;
+import com.jps.libraryapi.api.resouce.BookRepresentation;
 import com.jps.libraryapi.exception.BusinessException;
 import com.jps.libraryapi.model.entity.Book;
+import com.jps.libraryapi.model.repository.BookVersion;
+import com.jps.libraryapi.service.BookBatchResult;
 import com.jps.libraryapi.service.BookService;
 
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(SpringExtension.class)
 @ActiveProfiles("teste")
-@WebMvcTest
+@WebMvcTest(controllers = BookController.class)
 @AutoConfigureMockMvc
 public class BookControllerTest {
 	
@@ -130,6 +147,8 @@ public class BookControllerTest {
 					.isbn(createNewBook().getIsbn())
 					.build();
 		
+		BookVersion version = bookVersion(id, 3l);
+		BDDMockito.given(service.getVersion(id)).willReturn(Optional.of(version));
 		BDDMockito.given(service.getById(id)).willReturn(Optional.of(book));
 		
 		//execucao (when)
@@ -139,6 +158,7 @@ public class BookControllerTest {
 		
 		mvc.perform(request)
 			.andExpect(status().isOk())
+			.andExpect( header().string(HttpHeaders.ETAG, "\"3\"") )
 			.andExpect( jsonPath( "id" ).value(id) )
 			.andExpect( jsonPath( "title" ).value(createNewBook().getTitle()) )
 			.andExpect( jsonPath( "author" ).value(createNewBook().getAuthor()) )
@@ -173,7 +193,7 @@ public class BookControllerTest {
 		//cenario
 		Long id = 1l;
 		
-		BDDMockito.given(service.getById(anyLong())).willReturn(Optional.of(Book.builder().id(id).build()));
+		BDDMockito.given(service.deleteById(id)).willReturn(true);
 		
 		//execucao (when)
 		MockHttpServletRequestBuilder request = MockMvcRequestBuilders
@@ -181,7 +201,8 @@ public class BookControllerTest {
 		
 		mvc.perform(request)
 			.andExpect(status().isNoContent());
-				
+		
+		Mockito.verify(service, Mockito.never()).getById(anyLong());
 	}
 	
 	@Test
@@ -191,7 +212,7 @@ public class BookControllerTest {
 		//cenario
 		Long id = 1l;
 		
-		BDDMockito.given(service.getById(anyLong())).willReturn(Optional.empty());
+		BDDMockito.given(service.deleteById(anyLong())).willReturn(false);
 		
 		//execucao (when)
 		MockHttpServletRequestBuilder request = MockMvcRequestBuilders
@@ -202,6 +223,67 @@ public class BookControllerTest {
 				
 	}
 	
+	@Test
+	@DisplayName("Deve obter vários livros por id numa chamada informando os inexistentes.")
+	public void getBooksByIdsTest() throws Exception {
+		BDDMockito.given(service.getAllById(Arrays.asList(3l, 1l, 2l, 3l))).willReturn(Arrays.asList(
+				Book.builder().id(3l).title("Maravilha").author("Janaina").isbn("003").build(),
+				Book.builder().id(1l).title("Aventuras").author("Artur").isbn("001").build()));
+		
+		mvc.perform( MockMvcRequestBuilders.get(BOOK_API).param("ids", "3,1,2,3").accept(MediaType.APPLICATION_JSON) )
+			.andExpect( status().isOk() )
+			.andExpect( jsonPath("content[*].id").value(Matchers.contains(3, 1)) )
+			.andExpect( jsonPath("missing").value(Matchers.contains(2)) );
+		
+		Mockito.verify(service, Mockito.never()).find(Mockito.any(Book.class), Mockito.any(Pageable.class));
+		Mockito.verify(service, Mockito.never()).getById(anyLong());
+	}
+	
+	@Test
+	@DisplayName("Deve obter vários livros por id enviados no corpo e limitar a quantidade.")
+	public void lookupBooksTest() throws Exception {
+		BDDMockito.given(service.getAllById(Arrays.asList(1l, 2l))).willReturn(Arrays.asList(
+				Book.builder().id(1l).title("Aventuras").author("Artur").isbn("001").build()));
+		
+		mvc.perform( MockMvcRequestBuilders.post(BOOK_API.concat("/lookup"))
+				.content("[1,2]")
+				.contentType(MediaType.APPLICATION_JSON) )
+			.andExpect( status().isOk() )
+			.andExpect( jsonPath("content", Matchers.hasSize(1)) )
+			.andExpect( jsonPath("missing").value(Matchers.contains(2)) );
+		
+		Long[] tooMany = new Long[1001];
+		Arrays.fill(tooMany, 1l);
+		mvc.perform( MockMvcRequestBuilders.post(BOOK_API.concat("/lookup"))
+				.content(new ObjectMapper().writeValueAsString(tooMany))
+				.contentType(MediaType.APPLICATION_JSON) )
+			.andExpect( status().isBadRequest() );
+	}
+	
+	@Test
+	@DisplayName("Deve deletar livros em lote pelos ids informados.")
+	public void deleteBooksByIdsTest() throws Exception {
+		BDDMockito.given(service.deleteAll(Arrays.asList(1l, 2l, 3l))).willReturn(2);
+		
+		mvc.perform( MockMvcRequestBuilders.delete(BOOK_API).param("ids", "1,2,3") )
+			.andExpect( status().isOk() )
+			.andExpect( jsonPath("deleted").value(2) );
+	}
+	
+	@Test
+	@DisplayName("Deve deletar livros em lote pelo filtro e exigir ao menos um filtro.")
+	public void deleteBooksByFilterTest() throws Exception {
+		BDDMockito.given(service.deleteAll(Mockito.any(Book.class))).willReturn(7);
+		
+		mvc.perform( MockMvcRequestBuilders.delete(BOOK_API).param("author", "Janaina") )
+			.andExpect( status().isOk() )
+			.andExpect( jsonPath("deleted").value(7) );
+		mvc.perform( MockMvcRequestBuilders.delete(BOOK_API).param("title", "") )
+			.andExpect( status().isBadRequest() );
+		
+		Mockito.verify(service).deleteAll(Mockito.argThat((Book filter) -> "Janaina".equals(filter.getAuthor()) && filter.getId() == null));
+	}
+	
 	@Test
 	@DisplayName("Deve atualizar um livro.")
 	public void updateBookTest() throws Exception {
@@ -211,8 +293,8 @@ public class BookControllerTest {
 
         Book updatingBook = Book.builder().id(1l).title("some title").author("some author").isbn("321").build();
         BDDMockito.given( service.getById(id) ).willReturn( Optional.of(updatingBook) );
-        Book updatedBook = Book.builder().id(id).author("Artur").title("As aventuras").isbn("321").build();
-        BDDMockito.given(service.update(updatingBook)).willReturn(updatedBook);
+        Book updatedBook = Book.builder().id(id).author(createNewBook().getAuthor()).title(createNewBook().getTitle()).isbn("321").version(1l).build();
+        BDDMockito.given(service.update(Mockito.any(Book.class))).willReturn(updatedBook);
 
         MockHttpServletRequestBuilder request = MockMvcRequestBuilders
                 .put(BOOK_API.concat("/" + 1))
@@ -225,7 +307,8 @@ public class BookControllerTest {
 	        .andExpect( jsonPath("id").value(id) )
 	        .andExpect( jsonPath("title").value(createNewBook().getTitle()) )
 	        .andExpect( jsonPath("author").value(createNewBook().getAuthor()) )
-	        .andExpect( jsonPath("isbn").value("321") );
+	        .andExpect( jsonPath("isbn").value("321") )
+	        .andExpect( header().string(HttpHeaders.ETAG, "\"1\"") );
 	}
 	
 	@Test
@@ -281,6 +364,354 @@ public class BookControllerTest {
 				
 	}
 	
+	@Test
+	@DisplayName("Deve criar livros em lote e informar o resultado de cada item.")
+	public void createBatchTest() throws Exception {
+		
+		BookDTO valid = createNewBook();
+		BookDTO duplicated = BookDTO.builder().author("Artur").title("As aventuras").isbn("001").build();
+		BookDTO invalid = new BookDTO();
+		
+		BDDMockito.given(service.saveAll(Mockito.anyList())).willReturn(Arrays.asList(
+				BookBatchResult.created(0, Book.builder().id(10l).isbn("001").build()),
+				BookBatchResult.rejected(1, Book.builder().isbn("001").build(), "Isbn já cadastrado")
+		));
+		
+		String json = new ObjectMapper().writeValueAsString(Arrays.asList(valid, invalid, duplicated));
+		
+		MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+				.post(BOOK_API.concat("/batch"))
+				.contentType(MediaType.APPLICATION_JSON)
+				.accept(MediaType.APPLICATION_JSON)
+				.content(json);
+		
+		mvc.perform(request)
+			.andExpect( status().isOk() )
+			.andExpect( jsonPath("created").value(1) )
+			.andExpect( jsonPath("rejected").value(2) )
+			.andExpect( jsonPath("items[0].status").value("CREATED") )
+			.andExpect( jsonPath("items[0].id").value(10) )
+			.andExpect( jsonPath("items[1].status").value("REJECTED") )
+			.andExpect( jsonPath("items[2].status").value("REJECTED") )
+			.andExpect( jsonPath("items[2].index").value(2) )
+			.andExpect( jsonPath("items[2].error").value("Isbn já cadastrado") )
+		;
+	}
+	
+	@Test
+	@DisplayName("Deve filtrar livros por cursor devolvendo o próximo cursor.")
+	public void findBooksAfterCursorTest() throws Exception {
+		Book book = Book.builder().id(7l).title("Maravilha").author("Janaina").isbn("001").build();
+		
+		BDDMockito.given( service.findAfter(Mockito.any(Book.class), Mockito.eq(5l), Mockito.eq(1)) )
+			.willReturn( new SliceImpl<Book>( Arrays.asList(book), PageRequest.of(0, 1), true ) );
+		
+		String after = Base64.getUrlEncoder().withoutPadding().encodeToString("5".getBytes());
+		MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+				.get(BOOK_API.concat("/cursor?title=Mara&size=1&after=" + after))
+				.accept(MediaType.APPLICATION_JSON);
+		
+		String next = Base64.getUrlEncoder().withoutPadding().encodeToString("7".getBytes());
+		mvc.perform( request )
+			.andExpect( status().isOk() )
+			.andExpect( jsonPath("content", Matchers.hasSize(1)) )
+			.andExpect( jsonPath("content[0].id").value(7) )
+			.andExpect( jsonPath("next").value(next) )
+			.andExpect( jsonPath("totalElements").doesNotExist() );
+	}
+	
+	@Test
+	@DisplayName("Deve retornar bad request para cursor inválido.")
+	public void findBooksInvalidCursorTest() throws Exception {
+		mvc.perform( MockMvcRequestBuilders.get(BOOK_API.concat("/cursor?after=@@@")) )
+			.andExpect( status().isBadRequest() );
+	}
+	
+	@Test
+	@DisplayName("Deve exportar os livros filtrados em CSV.")
+	public void exportBooksCsvTest() throws Exception {
+		BDDMockito.willAnswer(invocation -> {
+			Consumer<Book> consumer = invocation.getArgument(1);
+			consumer.accept(Book.builder().id(1l).title("Maravilha").author("Janaina").isbn("001").build());
+			consumer.accept(Book.builder().id(2l).title("Aventuras, \"volume\" 2").author("Artur").isbn("002").build());
+			return null;
+		}).given(service).export(Mockito.any(Book.class), Mockito.any());
+		
+		MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+				.get(BOOK_API.concat("/export?format=csv&author=a"));
+		
+		mvc.perform( request )
+			.andExpect( status().isOk() )
+			.andExpect( content().contentTypeCompatibleWith("text/csv") )
+			.andExpect( content().string("id,title,author,isbn\n"
+					+ "1,Maravilha,Janaina,001\n"
+					+ "2,\"Aventuras, \"\"volume\"\" 2\",Artur,002\n") );
+	}
+	
+	@Test
+	@DisplayName("Deve exportar os livros filtrados em NDJSON.")
+	public void exportBooksNdjsonTest() throws Exception {
+		BDDMockito.willAnswer(invocation -> {
+			Consumer<Book> consumer = invocation.getArgument(1);
+			consumer.accept(Book.builder().id(1l).title("Maravilha").author("Janaina").isbn("001").build());
+			consumer.accept(Book.builder().id(2l).title("Aventuras").author("Artur").isbn("002").build());
+			return null;
+		}).given(service).export(Mockito.any(Book.class), Mockito.any());
+		
+		mvc.perform( MockMvcRequestBuilders.get(BOOK_API.concat("/export")) )
+			.andExpect( status().isOk() )
+			.andExpect( content().contentTypeCompatibleWith("application/x-ndjson") )
+			.andExpect( content().string("{\"id\":1,\"title\":\"Maravilha\",\"author\":\"Janaina\",\"isbn\":\"001\"}\n"
+					+ "{\"id\":2,\"title\":\"Aventuras\",\"author\":\"Artur\",\"isbn\":\"002\"}\n") );
+	}
+	
+	@Test
+	@DisplayName("Deve retornar 304 quando o ETag do livro não mudou")
+	public void getBookNotModifiedTest() throws Exception {
+		BookVersion version = bookVersion(1l, 2l);
+		BDDMockito.given(service.getVersion(1l)).willReturn(Optional.of(version));
+		
+		mvc.perform( MockMvcRequestBuilders.get(BOOK_API.concat("/1")).header(HttpHeaders.IF_NONE_MATCH, "\"2\"") )
+			.andExpect( status().isNotModified() )
+			.andExpect( content().string("") );
+		
+		Mockito.verify(service, Mockito.never()).getById(anyLong());
+	}
+	
+	@Test
+	@DisplayName("Deve enviar a versão do If-Match para o serviço ao atualizar")
+	public void updateBookWithIfMatchTest() throws Exception {
+		Book book = Book.builder().id(1l).title("some title").author("some author").isbn("321").version(4l).build();
+		BDDMockito.given(service.getById(1l)).willReturn(Optional.of(book));
+		BDDMockito.given(service.update(Mockito.any(Book.class))).willAnswer(i -> i.getArgument(0));
+		
+		mvc.perform( MockMvcRequestBuilders.put(BOOK_API.concat("/1"))
+				.header(HttpHeaders.IF_MATCH, "\"2\"")
+				.content(new ObjectMapper().writeValueAsString(createNewBook()))
+				.contentType(MediaType.APPLICATION_JSON) )
+			.andExpect( status().isOk() )
+			.andExpect( header().string(HttpHeaders.ETAG, "\"2\"") );
+		
+		Mockito.verify(service).update(Mockito.argThat(b -> b.getVersion() == 2l && "Maravilha".equals(b.getTitle())));
+		// o livro do cache não pode ser alterado
+		Assertions.assertThat(book.getVersion()).isEqualTo(4l);
+	}
+	
+	@Test
+	@DisplayName("Deve retornar 412 quando o livro foi alterado por outra requisição")
+	public void updateStaleBookTest() throws Exception {
+		Book book = Book.builder().id(1l).title("some title").author("some author").isbn("321").version(4l).build();
+		BDDMockito.given(service.getById(1l)).willReturn(Optional.of(book));
+		BDDMockito.given(service.update(Mockito.any(Book.class))).willThrow(new OptimisticLockingFailureException("stale"));
+		
+		mvc.perform( MockMvcRequestBuilders.put(BOOK_API.concat("/1"))
+				.header(HttpHeaders.IF_MATCH, "\"3\"")
+				.content(new ObjectMapper().writeValueAsString(createNewBook()))
+				.contentType(MediaType.APPLICATION_JSON) )
+			.andExpect( status().isPreconditionFailed() )
+			.andExpect( jsonPath("errors[0]").value("Livro alterado por outra requisição") );
+	}
+	
+	@Test
+	@DisplayName("Deve retornar 412 quando o If-Match não é um ETag de versão")
+	public void updateBookInvalidIfMatchTest() throws Exception {
+		BDDMockito.given(service.getById(1l)).willReturn(Optional.of(Book.builder().id(1l).isbn("321").build()));
+		
+		mvc.perform( MockMvcRequestBuilders.put(BOOK_API.concat("/1"))
+				.header(HttpHeaders.IF_MATCH, "W/\"abc\"")
+				.content(new ObjectMapper().writeValueAsString(createNewBook()))
+				.contentType(MediaType.APPLICATION_JSON) )
+			.andExpect( status().isPreconditionFailed() );
+		
+		Mockito.verify(service, Mockito.never()).update(Mockito.any(Book.class));
+	}
+	
+	@Test
+	@DisplayName("Deve alterar parcialmente um livro com um único update.")
+	public void patchBookTest() throws Exception {
+		BDDMockito.given(service.patch(Mockito.eq(1l), Mockito.eq(2l), Mockito.any(Book.class))).willReturn(true);
+		
+		mvc.perform( MockMvcRequestBuilders.patch(BOOK_API.concat("/1"))
+				.header(HttpHeaders.IF_MATCH, "\"2\"")
+				.content(new ObjectMapper().writeValueAsString(BookPatchDTO.builder().title("Outro titulo").build()))
+				.contentType(MediaType.APPLICATION_JSON) )
+			.andExpect( status().isNoContent() )
+			.andExpect( header().string(HttpHeaders.ETAG, "\"3\"") );
+		
+		Mockito.verify(service).patch(Mockito.eq(1l), Mockito.eq(2l),
+				Mockito.argThat(b -> "Outro titulo".equals(b.getTitle()) && b.getAuthor() == null));
+		Mockito.verify(service, Mockito.never()).getById(anyLong());
+	}
+	
+	@Test
+	@DisplayName("Deve retornar 404 ao alterar parcialmente um livro inexistente.")
+	public void patchInexistentBookTest() throws Exception {
+		BDDMockito.given(service.patch(Mockito.anyLong(), Mockito.any(), Mockito.any(Book.class))).willReturn(false);
+		
+		mvc.perform( MockMvcRequestBuilders.patch(BOOK_API.concat("/1"))
+				.content(new ObjectMapper().writeValueAsString(BookPatchDTO.builder().author("Artur").build()))
+				.contentType(MediaType.APPLICATION_JSON) )
+			.andExpect( status().isNotFound() );
+	}
+	
+	@Test
+	@DisplayName("Deve rejeitar alteração parcial vazia ou com campo em branco.")
+	public void patchInvalidBookTest() throws Exception {
+		mvc.perform( MockMvcRequestBuilders.patch(BOOK_API.concat("/1"))
+				.content("{}")
+				.contentType(MediaType.APPLICATION_JSON) )
+			.andExpect( status().isBadRequest() );
+		
+		mvc.perform( MockMvcRequestBuilders.patch(BOOK_API.concat("/1"))
+				.content(new ObjectMapper().writeValueAsString(BookPatchDTO.builder().title(" ").build()))
+				.contentType(MediaType.APPLICATION_JSON) )
+			.andExpect( status().isBadRequest() )
+			.andExpect( jsonPath("errors", Matchers.hasSize(1)) );
+		
+		Mockito.verify(service, Mockito.never()).patch(Mockito.anyLong(), Mockito.any(), Mockito.any(Book.class));
+	}
+	
+	@Test
+	@DisplayName("Deve validar o corpo ao atualizar um livro.")
+	public void updateInvalidBookTest() throws Exception {
+		mvc.perform( MockMvcRequestBuilders.put(BOOK_API.concat("/1"))
+				.content(new ObjectMapper().writeValueAsString(new BookDTO()))
+				.contentType(MediaType.APPLICATION_JSON) )
+			.andExpect( status().isBadRequest() )
+			.andExpect( jsonPath("errors", Matchers.hasSize(2)) );
+		
+		Mockito.verify(service, Mockito.never()).update(Mockito.any(Book.class));
+	}
+	
+	@Test
+	@DisplayName("Deve atualizar um livro sem exigir o isbn, que o PUT não altera.")
+	public void updateBookWithoutIsbnTest() throws Exception {
+		Book book = Book.builder().id(1l).title("some title").author("some author").isbn("321").version(4l).build();
+		BDDMockito.given(service.getById(1l)).willReturn(Optional.of(book));
+		BDDMockito.given(service.update(Mockito.any(Book.class))).willAnswer(i -> i.getArgument(0));
+		
+		mvc.perform( MockMvcRequestBuilders.put(BOOK_API.concat("/1"))
+				.content("{\"title\":\"Maravilha\",\"author\":\"Janaina\"}")
+				.contentType(MediaType.APPLICATION_JSON) )
+			.andExpect( status().isOk() )
+			.andExpect( jsonPath("isbn").value("321") )
+			.andExpect( jsonPath("title").value("Maravilha") );
+	}
+	
+	@Test
+	@DisplayName("Deve receber e devolver o livro em CBOR quando pedido no Content-Type e no Accept")
+	public void createBookCborTest() throws Exception {
+		ObjectMapper cbor = new ObjectMapper(new CBORFactory());
+		Book savedBook = Book.builder().id(10l).author("Janaina").title("Maravilha").isbn("001").version(0l).build();
+		BDDMockito.given(service.save(Mockito.any(Book.class))).willReturn(savedBook);
+		
+		byte[] body = mvc.perform( MockMvcRequestBuilders.post(BOOK_API)
+				.contentType(MediaType.APPLICATION_CBOR)
+				.accept(MediaType.APPLICATION_CBOR)
+				.content(cbor.writeValueAsBytes(createNewBook())) )
+			.andExpect( status().isCreated() )
+			.andExpect( content().contentType(MediaType.APPLICATION_CBOR) )
+			.andReturn().getResponse().getContentAsByteArray();
+		
+		BookDTO created = cbor.readValue(body, BookDTO.class);
+		Assertions.assertThat(created.getId()).isEqualTo(10);
+		Assertions.assertThat(created.getTitle()).isEqualTo("Maravilha");
+		Mockito.verify(service).save(Mockito.argThat(book -> "001".equals(book.getIsbn()) && "Janaina".equals(book.getAuthor())));
+	}
+	
+	@Test
+	@DisplayName("Deve responder em JSON por padrão e em Smile com ETag própria quando pedido no Accept")
+	public void getBookSmileTest() throws Exception {
+		BookVersion version = bookVersion(1l, 2l);
+		Book book = Book.builder().id(1l).title("Maravilha").author("Janaina").isbn("001").version(2l).build();
+		BDDMockito.given(service.getVersion(1l)).willReturn(Optional.of(version));
+		BDDMockito.given(service.getById(1l)).willReturn(Optional.of(book));
+		
+		mvc.perform( MockMvcRequestBuilders.get(BOOK_API.concat("/1")) )
+			.andExpect( status().isOk() )
+			.andExpect( content().contentType(MediaType.APPLICATION_JSON) )
+			.andExpect( header().string(HttpHeaders.ETAG, "\"2\"") )
+			.andExpect( header().string(HttpHeaders.VARY, Matchers.containsString(HttpHeaders.ACCEPT)) );
+		
+		byte[] body = mvc.perform( MockMvcRequestBuilders.get(BOOK_API.concat("/1"))
+				.accept(BookRepresentation.SMILE)
+				.header(HttpHeaders.IF_NONE_MATCH, "\"2\"") )
+			.andExpect( status().isOk() )
+			.andExpect( content().contentType(BookRepresentation.SMILE) )
+			.andExpect( header().string(HttpHeaders.ETAG, "\"2-smile\"") )
+			.andReturn().getResponse().getContentAsByteArray();
+		Assertions.assertThat(new ObjectMapper(new SmileFactory()).readValue(body, BookDTO.class).getIsbn()).isEqualTo("001");
+		
+		mvc.perform( MockMvcRequestBuilders.get(BOOK_API.concat("/1"))
+				.accept(BookRepresentation.SMILE)
+				.header(HttpHeaders.IF_NONE_MATCH, "\"2-smile\"") )
+			.andExpect( status().isNotModified() );
+	}
+	
+	@Test
+	@DisplayName("Deve aceitar no If-Match a ETag de qualquer formato")
+	public void updateBookWithCborIfMatchTest() throws Exception {
+		Book book = Book.builder().id(1l).title("some title").author("some author").isbn("321").version(4l).build();
+		BDDMockito.given(service.getById(1l)).willReturn(Optional.of(book));
+		BDDMockito.given(service.update(Mockito.any(Book.class))).willAnswer(i -> i.getArgument(0));
+		
+		mvc.perform( MockMvcRequestBuilders.put(BOOK_API.concat("/1"))
+				.header(HttpHeaders.IF_MATCH, "\"4-cbor\"")
+				.accept(MediaType.APPLICATION_CBOR)
+				.content(new ObjectMapper().writeValueAsString(createNewBook()))
+				.contentType(MediaType.APPLICATION_JSON) )
+			.andExpect( status().isOk() )
+			.andExpect( content().contentType(MediaType.APPLICATION_CBOR) )
+			.andExpect( header().string(HttpHeaders.ETAG, "\"4-cbor\"") );
+		
+		Mockito.verify(service).update(Mockito.argThat(b -> b.getVersion() == 4l));
+	}
+	
+	@Test
+	@DisplayName("Deve buscar livros no envelope enxuto sem contagem")
+	public void searchBooksTest() throws Exception {
+		Book book = Book.builder().id(7l).title("Maravilha").author("Janaina").isbn("001").build();
+		BDDMockito.given( service.findSlice(Mockito.any(Book.class), Mockito.eq(PageRequest.of(1, 1))) )
+			.willReturn( new SliceImpl<Book>( Arrays.asList(book), PageRequest.of(1, 1), true ) );
+		
+		mvc.perform( MockMvcRequestBuilders.get(BOOK_API.concat("/search?title=Mara&page=1&size=1")) )
+			.andExpect( status().isOk() )
+			.andExpect( content().contentType(MediaType.APPLICATION_JSON) )
+			.andExpect( content().json("{\"page\":1,\"size\":1,\"hasNext\":true,"
+					+ "\"items\":[{\"id\":7,\"title\":\"Maravilha\",\"author\":\"Janaina\",\"isbn\":\"001\"}]}", true) );
+		
+		Mockito.verify(service).findSlice(Mockito.argThat(filter -> "Mara".equals(filter.getTitle())), Mockito.any(Pageable.class));
+		Mockito.verify(service, Mockito.never()).find(Mockito.any(Book.class), Mockito.any(Pageable.class));
+	}
+	
+	@Test
+	@DisplayName("Deve incluir o total no envelope enxuto quando pedido e respeitar o formato do Accept")
+	public void searchBooksWithTotalTest() throws Exception {
+		Book book = Book.builder().id(7l).title("Maravilha").author("Janaina").isbn("001").build();
+		BDDMockito.given( service.find(Mockito.any(Book.class), Mockito.any(Pageable.class)) )
+			.willReturn( new PageImpl<Book>( Arrays.asList(book), PageRequest.of(0, 20), 41 ) );
+		
+		byte[] body = mvc.perform( MockMvcRequestBuilders.get(BOOK_API.concat("/search?total=true"))
+				.accept(MediaType.APPLICATION_CBOR) )
+			.andExpect( status().isOk() )
+			.andExpect( content().contentType(MediaType.APPLICATION_CBOR) )
+			.andReturn().getResponse().getContentAsByteArray();
+		
+		JsonNode envelope = new ObjectMapper(new CBORFactory()).readTree(body);
+		Assertions.assertThat(envelope.get("total").asLong()).isEqualTo(41);
+		Assertions.assertThat(envelope.get("hasNext").asBoolean()).isTrue();
+		Assertions.assertThat(envelope.get("items").get(0).get("isbn").asText()).isEqualTo("001");
+		Mockito.verify(service, Mockito.never()).findSlice(Mockito.any(Book.class), Mockito.any(Pageable.class));
+	}
+	
+	private BookVersion bookVersion(Long id, Long version) {
+		BookVersion bookVersion = Mockito.mock(BookVersion.class);
+		BDDMockito.given(bookVersion.getId()).willReturn(id);
+		BDDMockito.given(bookVersion.getVersion()).willReturn(version);
+		BDDMockito.given(bookVersion.getLastModified()).willReturn(Instant.parse("2021-03-01T10:00:00Z"));
+		return bookVersion;
+	}
+	
 	private BookDTO createNewBook() {
 		return BookDTO.builder().author("Janaina").title("Maravilha").isbn("001").build();
 	}
@@ -0,0 +1,143 @@
+package com.jps.libraryapi.api.resource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import com.jps.libraryapi.api.dto.BookCursorPageDTO;
+import com.jps.libraryapi.api.dto.BookDTO;
+import com.jps.libraryapi.model.entity.Book;
+import com.jps.libraryapi.model.repository.BookRepository;
+
+@ActiveProfiles({ "teste", "reactive" })
+@SpringBootTest(properties = "spring.main.web-application-type=reactive")
+@AutoConfigureWebTestClient
+public class ReactiveBookControllerTest {
+
+	static String BOOK_API = "/api/books";
+	
+	@Autowired
+	WebTestClient client;
+	
+	@Autowired
+	BookRepository jpaRepository;
+	
+	@Test
+	@DisplayName("Deve criar, consultar, atualizar e excluir um livro pela pilha reativa")
+	public void crudTest() {
+		Book jpaBook = jpaRepository.save(Book.builder().isbn("r-jpa").author("Fulano").title("Pela JPA").build());
+		
+		BookDTO created = client.post().uri(BOOK_API)
+			.bodyValue(BookDTO.builder().isbn("r-001").author("Janaina").title("Maravilha").build())
+			.exchange()
+			.expectStatus().isCreated()
+			.expectBody(BookDTO.class).returnResult().getResponseBody();
+		
+		assertThat(created.getId()).isPositive().isNotEqualTo(jpaBook.getId().intValue());
+		
+		client.get().uri(BOOK_API + "/" + created.getId())
+			.exchange()
+			.expectStatus().isOk()
+			.expectBody().jsonPath("isbn").isEqualTo("r-001");
+		
+		client.put().uri(BOOK_API + "/" + created.getId())
+			.bodyValue(BookDTO.builder().author("Outro autor").title("Outro titulo").build())
+			.exchange()
+			.expectStatus().isOk()
+			.expectBody().jsonPath("author").isEqualTo("Outro autor").jsonPath("isbn").isEqualTo("r-001");
+		
+		client.delete().uri(BOOK_API + "/" + created.getId())
+			.exchange()
+			.expectStatus().isNoContent();
+		
+		client.get().uri(BOOK_API + "/" + created.getId())
+			.exchange()
+			.expectStatus().isNotFound();
+	}
+	
+	@Test
+	@DisplayName("Deve rejeitar livro inválido, na criação e na atualização, ou com isbn duplicado")
+	public void createInvalidBookTest() {
+		client.post().uri(BOOK_API)
+			.bodyValue(new BookDTO())
+			.exchange()
+			.expectStatus().isBadRequest()
+			.expectBody().jsonPath("errors.length()").isEqualTo(3);
+		
+		Book stored = jpaRepository.save(Book.builder().isbn("r-invalid").author("Fulano").title("Valido").build());
+		client.put().uri(BOOK_API + "/" + stored.getId())
+			.bodyValue(BookDTO.builder().isbn("r-invalid").build())
+			.exchange()
+			.expectStatus().isBadRequest()
+			.expectBody().jsonPath("errors.length()").isEqualTo(2);
+		assertThat(jpaRepository.findById(stored.getId()).get().getTitle()).isEqualTo("Valido");
+		
+		jpaRepository.save(Book.builder().isbn("r-dup").author("Fulano").title("Duplicado").build());
+		client.post().uri(BOOK_API)
+			.bodyValue(BookDTO.builder().isbn("r-dup").author("Fulano").title("Duplicado").build())
+			.exchange()
+			.expectStatus().isBadRequest()
+			.expectBody().jsonPath("errors[0]").isEqualTo("Isbn já cadastrado");
+	}
+	
+	@Test
+	@DisplayName("Deve buscar livros paginados em JSON ou transmitidos em NDJSON")
+	public void findBooksTest() {
+		for (int i = 0; i < 5; i++) {
+			jpaRepository.save(Book.builder().isbn("r-find-" + i).author("Autor Reativo").title("Livro " + i).build());
+		}
+		
+		client.get().uri(BOOK_API + "?author=reativo&page=0&size=2&sort=isbn,desc")
+			.exchange()
+			.expectStatus().isOk()
+			.expectBody()
+			.jsonPath("content.length()").isEqualTo(2)
+			.jsonPath("content[0].isbn").isEqualTo("r-find-4")
+			.jsonPath("totalElements").isEqualTo(5)
+			.jsonPath("pageable.pageSize").isEqualTo(2);
+		
+		List<BookDTO> streamed = client.get().uri(BOOK_API + "?author=REATIVO&sort=isbn")
+			.accept(MediaType.APPLICATION_NDJSON)
+			.exchange()
+			.expectStatus().isOk()
+			.expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+			.returnResult(BookDTO.class).getResponseBody().collectList().block();
+		
+		assertThat(streamed).extracting(BookDTO::getIsbn)
+			.containsExactly("r-find-0", "r-find-1", "r-find-2", "r-find-3", "r-find-4");
+	}
+	
+	@Test
+	@DisplayName("Deve paginar por cursor pela pilha reativa")
+	public void findBooksByCursorTest() {
+		for (int i = 0; i < 3; i++) {
+			jpaRepository.save(Book.builder().isbn("r-cursor-" + i).author("Cursor").title("Livro " + i).build());
+		}
+		
+		BookCursorPageDTO first = client.get().uri(BOOK_API + "/cursor?author=cursor&size=2")
+			.exchange()
+			.expectStatus().isOk()
+			.expectBody(BookCursorPageDTO.class).returnResult().getResponseBody();
+		
+		assertThat(first.getContent()).extracting(BookDTO::getIsbn).containsExactly("r-cursor-0", "r-cursor-1");
+		assertThat(first.getNext()).isNotEmpty();
+		
+		client.get().uri(BOOK_API + "/cursor?author=cursor&size=2&after=" + first.getNext())
+			.exchange()
+			.expectStatus().isOk()
+			.expectBody()
+			.jsonPath("content.length()").isEqualTo(1)
+			.jsonPath("content[0].isbn").isEqualTo("r-cursor-2")
+			.jsonPath("next").doesNotExist();
+	}
+	
+}
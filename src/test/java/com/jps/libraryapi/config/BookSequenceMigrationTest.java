@@ -0,0 +1,74 @@
+package com.jps.libraryapi.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+public class BookSequenceMigrationTest {
+
+	EmbeddedDatabase database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).generateUniqueName(true).build();
+	JdbcTemplate jdbc = new JdbcTemplate(database);
+	
+	@AfterEach
+	public void tearDown() {
+		database.shutdown();
+	}
+	
+	@Test
+	@DisplayName("Deve criar a sequência acima do maior id quando a tabela ainda usa IDENTITY")
+	public void migrateFromIdentityTest() {
+		jdbc.execute("create table book (id bigint generated by default as identity primary key, title varchar(255))");
+		jdbc.update("insert into book (title) values ('a'), ('b'), ('c')");
+		
+		new BookSequenceMigration(database, 500).migrate();
+		
+		assertThat(increment()).isEqualTo(500);
+		assertThat(nextValue()).isEqualTo(4);
+		assertThat(nextValue()).isEqualTo(504);
+	}
+	
+	@Test
+	@DisplayName("Deve reiniciar a sequência acima do maior id e do valor atual ao mudar o tamanho do bloco")
+	public void changeAllocationSizeTest() {
+		jdbc.execute("create table book (id bigint primary key, title varchar(255))");
+		jdbc.execute("create sequence book_seq start with 1 increment by 50");
+		nextValue();
+		nextValue();
+		jdbc.update("insert into book (id, title) values (70, 'a')");
+		
+		new BookSequenceMigration(database, 500).migrate();
+		
+		assertThat(increment()).isEqualTo(500);
+		// valor atual 51: o próximo bloco antigo começaria em 101, acima do maior id (70)
+		assertThat(nextValue()).isEqualTo(101);
+	}
+	
+	@Test
+	@DisplayName("Não deve mexer no banco novo nem na sequência que já está no tamanho configurado")
+	public void nothingToMigrateTest() {
+		new BookSequenceMigration(database, 500).migrate();
+		assertThat(jdbc.queryForObject("select count(*) from information_schema.sequences where sequence_name = 'BOOK_SEQ'", Long.class)).isZero();
+		
+		jdbc.execute("create table book (id bigint primary key)");
+		jdbc.execute("create sequence book_seq start with 1 increment by 500");
+		nextValue();
+		new BookSequenceMigration(database, 500).migrate();
+		
+		assertThat(nextValue()).isEqualTo(501);
+	}
+	
+	private long increment() {
+		return jdbc.queryForObject("select increment from information_schema.sequences where sequence_name = 'BOOK_SEQ'", Long.class);
+	}
+	
+	private long nextValue() {
+		return jdbc.queryForObject("select next value for book_seq", Long.class);
+	}
+	
+}
@@ -0,0 +1,39 @@
+package com.jps.libraryapi.config.datasource;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+/**
+ * "Replicação" entre dois H2 em memória para os testes: o script do primário traz schema, sequências e
+ * dados, e a réplica é recriada a partir dele.
+ */
+final class H2Replication {
+	
+	private H2Replication() {
+	}
+	
+	static void copy(DataSource primary, DataSource replica) throws SQLException {
+		List<String> script = new ArrayList<>();
+		try (Connection connection = primary.getConnection();
+				Statement statement = connection.createStatement();
+				ResultSet rows = statement.executeQuery("SCRIPT")) {
+			while (rows.next()) {
+				script.add(rows.getString(1));
+			}
+		}
+		try (Connection connection = replica.getConnection();
+				Statement statement = connection.createStatement()) {
+			statement.execute("DROP ALL OBJECTS");
+			for (String sql : script) {
+				statement.execute(sql);
+			}
+		}
+	}
+	
+}
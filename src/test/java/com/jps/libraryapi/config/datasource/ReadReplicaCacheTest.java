@@ -0,0 +1,138 @@
+package com.jps.libraryapi.config.datasource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import com.jayway.jsonpath.JsonPath;
+import com.jps.libraryapi.config.CacheConfig;
+import com.jps.libraryapi.model.entity.Book;
+import com.jps.libraryapi.model.repository.BookRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+// caches como em produção (cache de livros, segundo nível, cache de consultas e BookQueryCache), com as
+// cargas de cache mandadas para o primário
+@ActiveProfiles("teste")
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:rw-cache-primary;DB_CLOSE_DELAY=-1",
+		"library.datasource.replica.enabled=true",
+		"library.datasource.replica.cache-loads-from-primary=true",
+		"library.datasource.replica.jdbc-url=jdbc:h2:mem:rw-cache-replica;DB_CLOSE_DELAY=-1",
+		"library.datasource.replica.username=sa" })
+@AutoConfigureMockMvc
+public class ReadReplicaCacheTest {
+	
+	static final String BOOK_API = "/api/books";
+	
+	@Autowired
+	MockMvc mvc;
+	
+	@Autowired
+	BookRepository repository;
+	
+	@Autowired
+	CacheManager cacheManager;
+	
+	@Autowired
+	MeterRegistry registry;
+	
+	@Autowired
+	DataSource dataSource;
+	
+	DataSource primary;
+	DataSource replica;
+	
+	@BeforeEach
+	public void setUp() throws SQLException {
+		ReadWriteRoutingDataSource routing = dataSource.unwrap(ReadWriteRoutingDataSource.class);
+		primary = routing.getResolvedDataSources().get(ReadWriteRoutingDataSource.Target.PRIMARY);
+		replica = routing.getResolvedDataSources().get(ReadWriteRoutingDataSource.Target.REPLICA);
+		H2Replication.copy(primary, replica);
+	}
+	
+	@AfterEach
+	public void tearDown() throws SQLException {
+		repository.deleteAllInBatch();
+		cacheManager.getCache(CacheConfig.BOOKS).clear();
+		H2Replication.copy(primary, replica);
+	}
+	
+	@Test
+	@DisplayName("Não deve guardar nos caches o livro antigo lido da réplica atrasada depois de uma alteração")
+	public void cachesNotFilledFromReplicaTest() throws Exception {
+		Long id = create("rc-1");
+		H2Replication.copy(primary, replica);
+		mvc.perform(MockMvcRequestBuilders.get(BOOK_API + "/" + id))
+			.andExpect( jsonPath("title").value("Replicado") );
+		mvc.perform(MockMvcRequestBuilders.get(BOOK_API).param("author", "Fulano"))
+			.andExpect( jsonPath("content[0].title").value("Replicado") );
+		double cacheLoads = routed("cache-load");
+		
+		// a alteração não chega à réplica
+		mvc.perform(MockMvcRequestBuilders.patch(BOOK_API + "/" + id)
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"title\":\"Alterado\"}"))
+			.andExpect( status().isNoContent() );
+		mvc.perform(MockMvcRequestBuilders.get(BOOK_API).param("ids", id.toString()))
+			.andExpect( jsonPath("content[0].title").value("Replicado") );
+		
+		// outro cliente, sem o cookie de escrita: os caches são recarregados do primário
+		mvc.perform(MockMvcRequestBuilders.get(BOOK_API + "/" + id))
+			.andExpect( status().isOk() )
+			.andExpect( jsonPath("title").value("Alterado") );
+		mvc.perform(MockMvcRequestBuilders.get(BOOK_API).param("author", "Fulano"))
+			.andExpect( jsonPath("content[0].title").value("Alterado") );
+		
+		assertThat(cacheManager.getCache(CacheConfig.BOOKS).get(id, Book.class).getTitle()).isEqualTo("Alterado");
+		assertThat(routed("cache-load")).isGreaterThan(cacheLoads);
+	}
+	
+	@Test
+	@DisplayName("Não deve servir livro excluído que a réplica atrasada ainda tem")
+	public void deletedNotServedFromReplicaTest() throws Exception {
+		Long id = create("rc-2");
+		H2Replication.copy(primary, replica);
+		mvc.perform(MockMvcRequestBuilders.get(BOOK_API + "/" + id))
+			.andExpect( status().isOk() );
+		
+		mvc.perform(MockMvcRequestBuilders.delete(BOOK_API + "/" + id))
+			.andExpect( status().isNoContent() );
+		
+		mvc.perform(MockMvcRequestBuilders.get(BOOK_API + "/" + id))
+			.andExpect( status().isNotFound() );
+		assertThat(cacheManager.getCache(CacheConfig.BOOKS).get(id)).isNull();
+	}
+	
+	private Long create(String isbn) throws Exception {
+		MvcResult result = mvc.perform(MockMvcRequestBuilders.post(BOOK_API)
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"title\":\"Replicado\",\"author\":\"Fulano\",\"isbn\":\"" + isbn + "\"}"))
+			.andExpect( status().isCreated() )
+			.andReturn();
+		return ((Number) JsonPath.read(result.getResponse().getContentAsString(), "id")).longValue();
+	}
+	
+	private double routed(String reason) {
+		return registry.get(ReadWriteRoutingDataSource.ROUTED).tag("target", "primary").tag("reason", reason).counter().count();
+	}
+	
+}
@@ -0,0 +1,196 @@
+package com.jps.libraryapi.config.datasource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.cookie;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.sql.SQLException;
+
+import javax.persistence.EntityManagerFactory;
+import javax.servlet.http.Cookie;
+import javax.sql.DataSource;
+
+import org.hibernate.Cache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import com.jayway.jsonpath.JsonPath;
+import com.jps.libraryapi.config.CacheConfig;
+import com.jps.libraryapi.model.repository.BookRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+// dois H2 em memória, replicados à mão (H2Replication); caches e roteamento como vêm configurados
+@ActiveProfiles("teste")
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:rw-primary;DB_CLOSE_DELAY=-1",
+		"library.datasource.replica.enabled=true",
+		"library.datasource.replica.jdbc-url=jdbc:h2:mem:rw-replica;DB_CLOSE_DELAY=-1",
+		"library.datasource.replica.username=sa",
+		"library.datasource.replica.read-your-writes=1m" })
+@AutoConfigureMockMvc
+public class ReadReplicaRoutingTest {
+
+	static final String BOOK_API = "/api/books";
+	
+	@Autowired
+	MockMvc mvc;
+	
+	@Autowired
+	BookRepository repository;
+	
+	@Autowired
+	MeterRegistry registry;
+	
+	@Autowired
+	DataSource dataSource;
+	
+	@Autowired
+	CacheManager cacheManager;
+	
+	@Autowired
+	EntityManagerFactory entityManagerFactory;
+	
+	DataSource primary;
+	DataSource replica;
+	
+	@BeforeEach
+	public void setUp() throws SQLException {
+		ReadWriteRoutingDataSource routing = dataSource.unwrap(ReadWriteRoutingDataSource.class);
+		primary = routing.getResolvedDataSources().get(ReadWriteRoutingDataSource.Target.PRIMARY);
+		replica = routing.getResolvedDataSources().get(ReadWriteRoutingDataSource.Target.REPLICA);
+		replicate();
+	}
+	
+	@AfterEach
+	public void tearDown() throws SQLException {
+		repository.deleteAllInBatch();
+		replicate();
+	}
+	
+	@Test
+	@DisplayName("Deve ler da réplica e só enxergar o livro novo depois da replicação")
+	public void readFromReplicaTest() throws Exception {
+		Long id = create("rw-1");
+		double replicaReads = routed("replica", "read-only");
+		
+		mvc.perform(MockMvcRequestBuilders.get(BOOK_API).param("ids", id.toString()))
+			.andExpect( status().isOk() )
+			.andExpect( jsonPath("missing[0]").value(id) );
+		
+		replicate();
+		mvc.perform(MockMvcRequestBuilders.get(BOOK_API).param("ids", id.toString()))
+			.andExpect( status().isOk() )
+			.andExpect( jsonPath("content[0].isbn").value("rw-1") );
+		
+		assertThat(routed("replica", "read-only")).isGreaterThan(replicaReads);
+	}
+	
+	@Test
+	@DisplayName("Deve buscar por id e por filtro na réplica, inclusive as cargas dos caches")
+	public void getByIdAndFindFromReplicaTest() throws Exception {
+		Long id = create("rw-4");
+		clearCaches();
+		double replicaReads = routed("replica", "read-only");
+		
+		// cache vazio e réplica sem o livro: por id não acha, e a busca volta vazia
+		mvc.perform(MockMvcRequestBuilders.get(BOOK_API + "/" + id))
+			.andExpect( status().isNotFound() );
+		double afterGetById = routed("replica", "read-only");
+		assertThat(afterGetById).isGreaterThan(replicaReads);
+		mvc.perform(MockMvcRequestBuilders.get(BOOK_API).param("isbn", "rw-4"))
+			.andExpect( status().isOk() )
+			.andExpect( jsonPath("content").isEmpty() );
+		assertThat(routed("replica", "read-only")).isGreaterThan(afterGetById);
+		
+		// sem escrita no meio, nada invalida o que foi carregado da réplica atrasada: a cópia manual exige limpar
+		replicate();
+		clearCaches();
+		mvc.perform(MockMvcRequestBuilders.get(BOOK_API + "/" + id))
+			.andExpect( status().isOk() )
+			.andExpect( jsonPath("isbn").value("rw-4") );
+		// outra página: a consulta anterior ficou no BookQueryCache, que a cópia da réplica não invalida
+		mvc.perform(MockMvcRequestBuilders.get(BOOK_API).param("isbn", "rw-4").param("size", "5"))
+			.andExpect( status().isOk() )
+			.andExpect( jsonPath("content[0].id").value(id) );
+		
+		assertThat(registry.find(ReadWriteRoutingDataSource.ROUTED).tag("reason", "cache-load").counter().count()).isZero();
+	}
+	
+	@Test
+	@DisplayName("Deve ler do primário logo depois da escrita do mesmo cliente")
+	public void readYourWritesTest() throws Exception {
+		MvcResult result = mvc.perform(post("rw-2"))
+			.andExpect( status().isCreated() )
+			.andExpect( cookie().exists(ReadYourWritesFilter.COOKIE) )
+			.andReturn();
+		Long id = ((Number) JsonPath.read(result.getResponse().getContentAsString(), "id")).longValue();
+		Cookie lastWrite = result.getResponse().getCookie(ReadYourWritesFilter.COOKIE);
+		double pinned = routed("primary", "read-your-writes");
+		
+		mvc.perform(MockMvcRequestBuilders.get(BOOK_API).param("ids", id.toString()).cookie(lastWrite))
+			.andExpect( status().isOk() )
+			.andExpect( jsonPath("content[0].isbn").value("rw-2") );
+		
+		assertThat(routed("primary", "read-your-writes")).isGreaterThan(pinned);
+		// outro cliente, sem o cookie, ainda lê da réplica atrasada
+		mvc.perform(MockMvcRequestBuilders.get(BOOK_API).param("ids", id.toString()))
+			.andExpect( jsonPath("missing[0]").value(id) );
+	}
+	
+	@Test
+	@DisplayName("Deve mandar a checagem de isbn para a réplica e as escritas para o primário")
+	public void existsCheckOnReplicaTest() throws Exception {
+		create("rw-3");
+		
+		assertThat(repository.existsByIsbn("rw-3")).isFalse();
+		replicate();
+		assertThat(repository.existsByIsbn("rw-3")).isTrue();
+		
+		// o índice único do primário continua barrando o duplicado, mesmo com a réplica atrasada
+		mvc.perform(post("rw-3"))
+			.andExpect( status().isBadRequest() )
+			.andExpect( jsonPath("errors[0]").value("Isbn já cadastrado") );
+	}
+	
+	private Long create(String isbn) throws Exception {
+		MvcResult result = mvc.perform(post(isbn))
+			.andExpect( status().isCreated() )
+			.andReturn();
+		return ((Number) JsonPath.read(result.getResponse().getContentAsString(), "id")).longValue();
+	}
+	
+	private MockHttpServletRequestBuilder post(String isbn) {
+		return MockMvcRequestBuilders.post(BOOK_API)
+				.contentType(MediaType.APPLICATION_JSON)
+				.accept(MediaType.APPLICATION_JSON)
+				.content("{\"title\":\"Replicado\",\"author\":\"Fulano\",\"isbn\":\"" + isbn + "\"}");
+	}
+	
+	private double routed(String target, String reason) {
+		return registry.get(ReadWriteRoutingDataSource.ROUTED).tag("target", target).tag("reason", reason).counter().count();
+	}
+	
+	private void clearCaches() {
+		cacheManager.getCache(CacheConfig.BOOKS).clear();
+		entityManagerFactory.getCache().unwrap(Cache.class).evictAllRegions();
+	}
+	
+	private void replicate() throws SQLException {
+		H2Replication.copy(primary, replica);
+	}
+	
+}
@@ -0,0 +1,77 @@
+package com.jps.libraryapi.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Optional;
+
+import javax.validation.Validator;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.aop.AopAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.jps.libraryapi.api.resouce.BookController;
+import com.jps.libraryapi.exception.BusinessException;
+import com.jps.libraryapi.model.entity.Book;
+import com.jps.libraryapi.service.BookService;
+import com.jps.libraryapi.service.impl.BookServiceImpl;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ActiveProfiles("teste")
+@DataJpaTest
+@ImportAutoConfiguration(AopAutoConfiguration.class)
+@Import({ LibraryMetricsAspect.class, BookServiceImpl.class, NoOpCacheManager.class, SimpleMeterRegistry.class })
+public class LibraryMetricsAspectTest {
+
+	@Autowired
+	BookService service;
+	
+	@Autowired
+	MeterRegistry registry;
+	
+	@Test
+	@DisplayName("Deve cronometrar os métodos do serviço e do repositório, inclusive os herdados do JpaRepository")
+	public void timeServiceAndRepositoryTest() {
+		Book book = service.save(Book.builder().isbn("123").author("Fulano").title("As aventuras").build());
+		service.getById(book.getId());
+		
+		assertThat(registry.get(LibraryMetricsAspect.SERVICE_TIMER).tag("method", "save").timer().count()).isEqualTo(1);
+		assertThat(registry.get(LibraryMetricsAspect.SERVICE_TIMER).tag("method", "getById").timer().count()).isEqualTo(1);
+		assertThat(registry.get(LibraryMetricsAspect.REPOSITORY_TIMER).tag("method", "saveAndFlush").timer().count()).isEqualTo(1);
+		assertThat(registry.get(LibraryMetricsAspect.REPOSITORY_TIMER).tag("method", "findById").timer().count()).isEqualTo(1);
+	}
+	
+	@Test
+	@DisplayName("Deve contar os erros da API por tipo")
+	public void countApiErrorsTest() {
+		SimpleMeterRegistry errors = new SimpleMeterRegistry();
+		BookService mockService = Mockito.mock(BookService.class);
+		Mockito.when(mockService.getVersion(1l)).thenReturn(Optional.empty());
+		
+		AspectJProxyFactory factory = new AspectJProxyFactory(new BookController(mockService, Mockito.mock(Validator.class)));
+		factory.setProxyTargetClass(true);
+		factory.addAspect(new LibraryMetricsAspect(errors));
+		BookController controller = factory.getProxy();
+		
+		assertThatThrownBy(() -> controller.get(1l, new ServletWebRequest(new MockHttpServletRequest()))).isInstanceOf(ResponseStatusException.class);
+		controller.handleBusinessExceptions(new BusinessException("Isbn já cadastrado"));
+		
+		assertThat(errors.get(LibraryMetricsAspect.API_ERRORS).tag("type", "not_found").tag("status", "404").counter().count()).isEqualTo(1);
+		assertThat(errors.get(LibraryMetricsAspect.API_ERRORS).tag("type", "business").counter().count()).isEqualTo(1);
+	}
+	
+}
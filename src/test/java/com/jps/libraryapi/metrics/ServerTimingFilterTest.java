@@ -0,0 +1,80 @@
+package com.jps.libraryapi.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import com.jps.libraryapi.model.entity.Book;
+import com.jps.libraryapi.model.repository.BookRepository;
+
+@ActiveProfiles("teste")
+@SpringBootTest(properties = "library.server-timing.enabled=true")
+@AutoConfigureMockMvc
+public class ServerTimingFilterTest {
+
+	@Autowired
+	MockMvc mvc;
+	
+	@Autowired
+	BookRepository repository;
+	
+	@Test
+	@DisplayName("Deve devolver o header Server-Timing com o tempo de cada fase da requisição")
+	public void serverTimingHeaderTest() throws Exception {
+		Book book = repository.save(Book.builder().isbn("st-1").author("Fulano").title("As aventuras").build());
+		
+		MvcResult result = mvc.perform(MockMvcRequestBuilders.get("/api/books/" + book.getId()))
+			.andExpect( status().isOk() )
+			.andExpect( jsonPath("isbn").value("st-1") )
+			.andExpect( header().exists(ServerTimingFilter.HEADER) )
+			.andReturn();
+		
+		String serverTiming = result.getResponse().getHeader(ServerTimingFilter.HEADER);
+		assertThat(serverTiming.split(", "))
+			.extracting(entry -> entry.substring(0, entry.indexOf(';')))
+			.containsExactly("validation", "mapping", "service", "db", "serialization", "total");
+		assertThat(serverTiming).matches("([a-z]+;dur=\\d+\\.\\d{3}(, )?)+");
+	}
+	
+	@Test
+	@DisplayName("Não deve manter em buffer as respostas escritas direto pelo handler")
+	public void streamingHandlersNotBufferedTest() throws Exception {
+		repository.save(Book.builder().isbn("st-2").author("Beltrano").title("As aventuras").build());
+		
+		mvc.perform(MockMvcRequestBuilders.get("/api/books/search").param("author", "Beltrano"))
+			.andExpect( status().isOk() )
+			.andExpect( jsonPath("items[0].isbn").value("st-2") )
+			.andExpect( header().doesNotExist(ServerTimingFilter.HEADER) );
+		mvc.perform(MockMvcRequestBuilders.get("/api/books/export").param("author", "Beltrano"))
+			.andExpect( status().isOk() )
+			.andExpect( header().doesNotExist(ServerTimingFilter.HEADER) );
+		mvc.perform(MockMvcRequestBuilders.get("/api/books").param("author", "Beltrano"))
+			.andExpect( status().isOk() )
+			.andExpect( header().exists(ServerTimingFilter.HEADER) );
+	}
+	
+	@Test
+	@DisplayName("Deve descontar das fases externas o tempo das fases aninhadas")
+	public void nestedPhasesTest() {
+		ServerTiming timing = new ServerTiming();
+		timing.enter();
+		timing.enter();
+		timing.exit(ServerTiming.DB, 30);
+		timing.exit(ServerTiming.SERVICE, 100);
+		
+		assertThat(timing.getNanos(ServerTiming.SERVICE)).isEqualTo(70);
+		assertThat(timing.getNanos(ServerTiming.DB)).isEqualTo(30);
+	}
+	
+}
@@ -6,6 +6,10 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.ExampleMatcher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
@@ -13,7 +17,11 @@ import com.jps.libraryapi.model.entity.Book;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @ExtendWith(SpringExtension.class)
 @ActiveProfiles("teste")
@@ -97,6 +105,159 @@ public class BookRepositoryTest {
 		
 	}
 	
+	@Test
+	@DisplayName("Deve inserir livros em lote e retornar os isbn já cadastrados.")
+	public void insertAllAndFindExistingIsbnsTest() {
+		List<Book> books = new ArrayList<>();
+		for (int i = 0; i < 120; i++) {
+			books.add(createNewBook("isbn-" + i));
+		}
+		
+		repository.insertAll(books);
+		
+		assertThat(books).allMatch(book -> book.getId() != null);
+		assertThat(repository.count()).isEqualTo(120);
+		assertThat(repository.findExistingIsbns(Arrays.asList("isbn-1", "isbn-119", "outro")))
+			.containsExactlyInAnyOrder("isbn-1", "isbn-119");
+	}
+	
+	@Test
+	@DisplayName("Deve buscar livros após o id informado, em ordem de id, aplicando o filtro.")
+	public void findAfterTest() {
+		Book first = createNewBook("1");
+		Book second = createNewBook("2");
+		Book third = createNewBook("3");
+		third.setTitle("Outro");
+		Book fourth = createNewBook("4");
+		Arrays.asList(first, second, third, fourth).forEach(entityManager::persist);
+		
+		Example<Book> example = Example.of(Book.builder().title("AVENTURA").build(),
+				ExampleMatcher.matching().withIgnoreCase().withStringMatcher(ExampleMatcher.StringMatcher.CONTAINING));
+		
+		List<Book> result = repository.findAfter(example, first.getId(), 10);
+		
+		assertThat(result).extracting(Book::getId).containsExactly(second.getId(), fourth.getId());
+		assertThat(repository.findAfter(example, null, 1)).extracting(Book::getId).containsExactly(first.getId());
+	}
+	
+	@Test
+	@DisplayName("Deve percorrer os livros filtrados em stream, em ordem de id.")
+	public void streamAllTest() {
+		Book first = createNewBook("1");
+		Book second = createNewBook("2");
+		second.setAuthor("Artur");
+		Book third = createNewBook("3");
+		Arrays.asList(first, second, third).forEach(entityManager::persist);
+		
+		Example<Book> example = Example.of(Book.builder().author("janaina").build(),
+				ExampleMatcher.matching().withIgnoreCase().withStringMatcher(ExampleMatcher.StringMatcher.CONTAINING));
+		
+		try (Stream<Book> books = repository.streamAll(example)) {
+			assertThat(books.map(Book::getId)).containsExactly(first.getId(), third.getId());
+		}
+	}
+	
+	@Test
+	@DisplayName("Deve alterar só os campos informados e incrementar a versão num único update.")
+	public void patchTest() {
+		Book book = createNewBook("123");
+		entityManager.persist(book);
+		entityManager.flush();
+		Long version = book.getVersion();
+		
+		int updated = repository.patch(book.getId(), version, Book.builder().title("Outro titulo").build());
+		int stale = repository.patch(book.getId(), version, Book.builder().author("Artur").build());
+		int missing = repository.patch(book.getId() + 1, null, Book.builder().author("Artur").build());
+		
+		entityManager.clear();
+		Book patched = entityManager.find(Book.class, book.getId());
+		assertThat(updated).isEqualTo(1);
+		assertThat(stale).isZero();
+		assertThat(missing).isZero();
+		assertThat(patched.getTitle()).isEqualTo("Outro titulo");
+		assertThat(patched.getAuthor()).isEqualTo("Janaina");
+		assertThat(patched.getVersion()).isEqualTo(version + 1);
+	}
+	
+	@Test
+	@DisplayName("Deve deletar livros por id com um único delete e informar as linhas removidas.")
+	public void removeByIdTest() {
+		Book first = createNewBook("123");
+		Book second = createNewBook("456");
+		Book third = createNewBook("789");
+		entityManager.persist(first);
+		entityManager.persist(second);
+		entityManager.persist(third);
+		entityManager.flush();
+		
+		int removed = repository.removeById(first.getId());
+		int missing = repository.removeById(first.getId());
+		List<Long> bulk = repository.removeAllById(Arrays.asList(second.getId(), third.getId(), third.getId() + 100));
+		
+		entityManager.clear();
+		assertThat(removed).isEqualTo(1);
+		assertThat(missing).isZero();
+		assertThat(bulk).containsExactlyInAnyOrder(second.getId(), third.getId());
+		assertThat(repository.count()).isZero();
+	}
+	
+	@Test
+	@DisplayName("Deve listar só os ids que atendem ao filtro a partir do último id.")
+	public void findIdsAfterTest() {
+		Book first = createNewBook("123");
+		Book second = createNewBook("456");
+		Book other = Book.builder().title("Outro").author("Artur").isbn("789").build();
+		entityManager.persist(first);
+		entityManager.persist(second);
+		entityManager.persist(other);
+		
+		Example<Book> example = Example.of(Book.builder().author("janaina").build(),
+				ExampleMatcher.matching().withIgnoreCase().withIgnoreNullValues());
+		
+		assertThat(repository.findIdsAfter(example, null, 10)).containsExactly(first.getId(), second.getId());
+		assertThat(repository.findIdsAfter(example, first.getId(), 10)).containsExactly(second.getId());
+	}
+	
+	@Test
+	@DisplayName("Deve buscar só o conteúdo da página filtrada e ordenada.")
+	public void findPageTest() {
+		entityManager.persist(Book.builder().title("C").author("Janaina").isbn("1").build());
+		entityManager.persist(Book.builder().title("A").author("Janaina").isbn("2").build());
+		entityManager.persist(Book.builder().title("B").author("Janaina").isbn("3").build());
+		entityManager.persist(Book.builder().title("D").author("Artur").isbn("4").build());
+		
+		Example<Book> example = Example.of(Book.builder().author("janaina").build(),
+				ExampleMatcher.matching().withIgnoreCase().withIgnoreNullValues());
+		List<Book> page = repository.findPage(example, PageRequest.of(1, 2, Sort.by("title")));
+		
+		assertThat(page).extracting(Book::getTitle).containsExactly("C");
+	}
+	
+	@Test
+	@DisplayName("Deve montar os livros das leituras direto das colunas, sem gerenciá-los e com o mesmo filtro do findAll.")
+	public void projectedReadsTest() {
+		Book first = entityManager.persist(createNewBook("1"));
+		Book second = entityManager.persist(createNewBook("2"));
+		entityManager.persist(Book.builder().title("Outro").author("Artur").isbn("3").build());
+		entityManager.flush();
+		entityManager.clear();
+		
+		Example<Book> example = Example.of(Book.builder().title("aventura").build(),
+				ExampleMatcher.matching().withIgnoreCase().withStringMatcher(ExampleMatcher.StringMatcher.CONTAINING));
+		PageRequest pageRequest = PageRequest.of(0, 10, Sort.by("isbn").descending());
+		List<Book> page = repository.findPage(example, pageRequest);
+		List<Book> byIds = repository.findAllProjectedById(Arrays.asList(first.getId(), second.getId()));
+		
+		assertThat(page).extracting(Book::getId)
+			.containsExactlyElementsOf(repository.findAll(example, pageRequest).map(Book::getId).getContent());
+		assertThat(byIds).extracting(Book::getIsbn).containsExactlyInAnyOrder("1", "2");
+		entityManager.clear();
+		List<Book> projected = new ArrayList<>(page);
+		projected.addAll(byIds);
+		projected.addAll(repository.findAfter(example, null, 10));
+		assertThat(projected).noneMatch(entityManager.getEntityManager()::contains);
+	}
+	
 	private Book createNewBook(String isbn) {
 		return Book.builder().title("As aventuras").author("Janaina").isbn(isbn).build();
 	}
@@ -0,0 +1,128 @@
+package com.jps.libraryapi.model.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.jps.libraryapi.model.entity.Book;
+
+// sem a transação do teste: cada chamada ao repositório abre a sua sessão, como numa requisição
+@ActiveProfiles("teste")
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class BookSecondLevelCacheTest {
+
+	@Autowired
+	BookRepository repository;
+	
+	@Autowired
+	EntityManagerFactory entityManagerFactory;
+	
+	Statistics statistics;
+	
+	@BeforeEach
+	public void setUp() {
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+	}
+	
+	@AfterEach
+	public void tearDown() {
+		repository.deleteAllInBatch();
+	}
+	
+	@Test
+	@DisplayName("Deve obter o livro do cache de segundo nível nas buscas por id repetidas.")
+	public void findByIdHitsCacheTest() {
+		Book book = repository.save(createNewBook("123"));
+		statistics.clear();
+		
+		repository.findById(book.getId());
+		repository.findById(book.getId());
+		repository.findById(book.getId());
+		
+		assertThat(statistics.getSecondLevelCacheHitCount()).isEqualTo(3);
+		assertThat(statistics.getEntityLoadCount()).isZero();
+	}
+	
+	@Test
+	@DisplayName("Deve refletir alterações e deletes em massa no cache de segundo nível.")
+	public void invalidateOnWriteTest() {
+		Book book = repository.save(createNewBook("123"));
+		book.setTitle("Outro titulo");
+		repository.save(book);
+		
+		assertThat(repository.findById(book.getId()).get().getTitle()).isEqualTo("Outro titulo");
+		
+		repository.removeById(book.getId());
+		
+		assertThat(repository.findById(book.getId())).isEmpty();
+	}
+	
+	@Test
+	@DisplayName("Deve manter no cache de segundo nível os outros livros ao deletar ou alterar um só.")
+	public void singleRowWriteKeepsOtherBooksTest() {
+		Book first = repository.save(createNewBook("123"));
+		Book second = repository.save(createNewBook("456"));
+		Book third = repository.save(createNewBook("789"));
+		
+		repository.removeById(first.getId());
+		repository.patch(second.getId(), null, Book.builder().title("Outro titulo").build());
+		statistics.clear();
+		
+		assertThat(repository.findById(first.getId())).isEmpty();
+		assertThat(repository.findById(second.getId()).get().getTitle()).isEqualTo("Outro titulo");
+		assertThat(repository.findById(third.getId())).isPresent();
+		
+		// só o livro removido sai do cache; o alterado foi trocado lá, e o terceiro nem foi tocado
+		assertThat(statistics.getSecondLevelCacheHitCount()).isEqualTo(2);
+		assertThat(statistics.getSecondLevelCacheMissCount()).isEqualTo(1);
+		assertThat(statistics.getEntityLoadCount()).isZero();
+	}
+	
+	@Test
+	@DisplayName("Deve guardar findVersionById no cache de consultas até a próxima escrita na tabela.")
+	public void findVersionByIdQueryCacheTest() {
+		Book book = repository.save(createNewBook("123"));
+		statistics.clear();
+		
+		assertThat(repository.findVersionById(book.getId()).get().getVersion()).isEqualTo(book.getVersion());
+		assertThat(repository.findVersionById(book.getId())).isPresent();
+		assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+		
+		book.setTitle("Outro titulo");
+		Book updated = repository.save(book);
+		
+		assertThat(repository.findVersionById(book.getId()).get().getVersion()).isEqualTo(updated.getVersion());
+		assertThat(statistics.getQueryCacheMissCount()).isEqualTo(2);
+	}
+	
+	@Test
+	@DisplayName("Não deve guardar existsByIsbn no cache de consultas, que guardaria a resposta da réplica.")
+	public void existsByIsbnNotCachedTest() {
+		repository.save(createNewBook("123"));
+		statistics.clear();
+		
+		assertThat(repository.existsByIsbn("456")).isFalse();
+		assertThat(repository.existsByIsbn("456")).isFalse();
+		
+		assertThat(statistics.getQueryCacheHitCount()).isZero();
+		assertThat(statistics.getQueryCachePutCount()).isZero();
+	}
+	
+	private Book createNewBook(String isbn) {
+		return Book.builder().title("As aventuras").author("Janaina").isbn(isbn).build();
+	}
+}
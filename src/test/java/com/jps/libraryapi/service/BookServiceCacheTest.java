@@ -0,0 +1,163 @@
+package com.jps.libraryapi.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.cache.CacheAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Example;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.jps.libraryapi.config.CacheConfig;
+import com.jps.libraryapi.model.entity.Book;
+import com.jps.libraryapi.model.repository.BookRepository;
+import com.jps.libraryapi.model.repository.BookVersion;
+import com.jps.libraryapi.service.impl.BookServiceImpl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ActiveProfiles("teste")
+@SpringBootTest(classes = { BookServiceImpl.class, CacheConfig.class, SimpleMeterRegistry.class })
+@ImportAutoConfiguration(CacheAutoConfiguration.class)
+public class BookServiceCacheTest {
+
+	@Autowired
+	BookService service;
+	
+	@Autowired
+	CacheManager cacheManager;
+	
+	@MockBean
+	BookRepository repository;
+	
+	@BeforeEach
+	public void setUp() {
+		cacheManager.getCache(CacheConfig.BOOKS).clear();
+	}
+	
+	@Test
+	@DisplayName("Deve consultar a base apenas uma vez ao obter o mesmo livro repetidas vezes.")
+	public void getByIdCachedTest() {
+		Book book = createValidBook(1l);
+		Mockito.when(repository.findById(1l)).thenReturn(Optional.of(book));
+		
+		service.getById(1l);
+		Optional<Book> foundBook = service.getById(1l);
+		
+		assertThat(foundBook).contains(book);
+		Mockito.verify(repository, Mockito.times(1)).findById(1l);
+	}
+	
+	@Test
+	@DisplayName("Não deve guardar em cache livros inexistentes.")
+	public void bookNotFoundNotCachedTest() {
+		Mockito.when(repository.findById(1l)).thenReturn(Optional.empty());
+		
+		service.getById(1l);
+		service.getById(1l);
+		
+		Mockito.verify(repository, Mockito.times(2)).findById(1l);
+	}
+	
+	@Test
+	@DisplayName("Deve atualizar o cache ao alterar um livro.")
+	public void updateRefreshesCacheTest() {
+		Book book = createValidBook(1l);
+		Book updatedBook = createValidBook(1l);
+		updatedBook.setTitle("Novo titulo");
+		Mockito.when(repository.findById(1l)).thenReturn(Optional.of(book));
+		Mockito.when(repository.save(updatedBook)).thenReturn(updatedBook);
+		
+		service.getById(1l);
+		service.update(updatedBook);
+		
+		assertThat(service.getById(1l).get().getTitle()).isEqualTo("Novo titulo");
+		Mockito.verify(repository, Mockito.times(1)).findById(1l);
+	}
+	
+	@Test
+	@DisplayName("Deve remover o livro do cache ao deletar por id.")
+	public void deleteByIdEvictsCacheTest() {
+		Mockito.when(repository.findById(1l)).thenReturn(Optional.of(createValidBook(1l)));
+		Mockito.when(repository.removeById(1l)).thenReturn(1);
+		
+		service.getById(1l);
+		service.deleteById(1l);
+		service.getById(1l);
+		
+		Mockito.verify(repository, Mockito.times(2)).findById(1l);
+	}
+	
+	@Test
+	@DisplayName("Deve remover do cache apenas os livros deletados em massa.")
+	public void deleteAllEvictsOnlyDeletedTest() {
+		Mockito.when(repository.findById(1l)).thenReturn(Optional.of(createValidBook(1l)));
+		Mockito.when(repository.findById(2l)).thenReturn(Optional.of(createValidBook(2l)));
+		Mockito.when(repository.removeAllById(Mockito.anyCollection())).thenReturn(Arrays.asList(1l));
+		
+		service.getById(1l);
+		service.getById(2l);
+		service.deleteAll(Arrays.asList(1l));
+		
+		Cache books = cacheManager.getCache(CacheConfig.BOOKS);
+		assertThat(books.get(1l)).isNull();
+		assertThat(books.get(2l)).isNotNull();
+	}
+	
+	@Test
+	@DisplayName("Deve remover do cache apenas os livros deletados por filtro.")
+	@SuppressWarnings("unchecked")
+	public void deleteAllByFilterEvictsOnlyDeletedTest() {
+		Mockito.when(repository.findById(1l)).thenReturn(Optional.of(createValidBook(1l)));
+		Mockito.when(repository.findById(2l)).thenReturn(Optional.of(createValidBook(2l)));
+		Mockito.when(repository.findIdsAfter(Mockito.any(Example.class), Mockito.isNull(), Mockito.anyInt())).thenReturn(Arrays.asList(2l));
+		Mockito.when(repository.removeAllById(Mockito.anyCollection())).thenReturn(Arrays.asList(2l));
+		
+		service.getById(1l);
+		service.getById(2l);
+		service.deleteAll(Book.builder().author("Janaina").build());
+		
+		Cache books = cacheManager.getCache(CacheConfig.BOOKS);
+		assertThat(books.get(1l)).isNotNull();
+		assertThat(books.get(2l)).isNull();
+	}
+	
+	@Test
+	@DisplayName("Deve obter a versão do livro em cache sem consultar a base.")
+	public void getVersionFromCacheTest() {
+		Book book = createValidBook(1l);
+		book.setVersion(3l);
+		Mockito.when(repository.findById(1l)).thenReturn(Optional.of(book));
+		
+		service.getById(1l);
+		Optional<BookVersion> version = service.getVersion(1l);
+		
+		assertThat(version.get().getVersion()).isEqualTo(3l);
+		Mockito.verify(repository, Mockito.never()).findVersionById(1l);
+	}
+	
+	@Test
+	@DisplayName("Deve consultar a versão na base quando o livro não está em cache.")
+	public void getVersionNotCachedTest() {
+		BookVersion version = Mockito.mock(BookVersion.class);
+		Mockito.when(repository.findVersionById(1l)).thenReturn(Optional.of(version));
+		
+		assertThat(service.getVersion(1l)).contains(version);
+		Mockito.verify(repository, Mockito.never()).findById(1l);
+	}
+	
+	private Book createValidBook(Long id) {
+		return Book.builder().id(id).isbn("123").author("Janaina").title("As aventuras").build();
+	}
+}
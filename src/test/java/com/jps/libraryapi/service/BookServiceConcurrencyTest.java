@@ -0,0 +1,103 @@
+package com.jps.libraryapi.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.jps.libraryapi.exception.BusinessException;
+import com.jps.libraryapi.model.entity.Book;
+import com.jps.libraryapi.model.repository.BookRepository;
+import com.jps.libraryapi.service.impl.BookServiceImpl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+// cadastros simultâneos do mesmo ISBN contra o H2, sem a transação do teste
+@ActiveProfiles("teste")
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class BookServiceConcurrencyTest {
+
+	static final int THREADS = 16;
+	static final int ISBNS = 20;
+	
+	@Autowired
+	BookRepository repository;
+	
+	@Autowired
+	ApplicationEventPublisher publisher;
+	
+	@AfterEach
+	public void tearDown() {
+		repository.deleteAllInBatch();
+	}
+	
+	@Test
+	@DisplayName("Deve cadastrar cada isbn uma única vez só com o índice único")
+	public void concurrentSaveWithUniqueIndexTest() throws Exception {
+		assertSingleBookPerIsbn(service(false));
+	}
+	
+	@Test
+	@DisplayName("Deve cadastrar cada isbn uma única vez com checagem prévia e lock por isbn")
+	public void concurrentSaveWithPreCheckTest() throws Exception {
+		assertSingleBookPerIsbn(service(true));
+	}
+	
+	private BookService service(boolean preCheck) {
+		return new BookServiceImpl( repository, publisher, Optional.empty(), Optional.empty(), Optional.empty(), new NoOpCacheManager(), new SimpleMeterRegistry(), preCheck );
+	}
+	
+	private void assertSingleBookPerIsbn(BookService service) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch start = new CountDownLatch(1);
+		AtomicInteger rejected = new AtomicInteger();
+		try {
+			List<Future<?>> results = new ArrayList<>();
+			for (int thread = 0; thread < THREADS; thread++) {
+				results.add(executor.submit(() -> {
+					start.await();
+					for (int i = 0; i < ISBNS; i++) {
+						try {
+							service.save(Book.builder().isbn("dup-" + i).author("Fulano").title("Concorrente").build());
+						} catch (BusinessException e) {
+							rejected.incrementAndGet();
+						}
+					}
+					return null;
+				}));
+			}
+			start.countDown();
+			for (Future<?> result : results) {
+				result.get(30, TimeUnit.SECONDS);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		
+		assertThat(repository.count()).isEqualTo(ISBNS);
+		assertThat(rejected.get()).isEqualTo((THREADS - 1) * ISBNS);
+		for (int i = 0; i < ISBNS; i++) {
+			assertThat(repository.existsByIsbn("dup-" + i)).isTrue();
+		}
+	}
+	
+}
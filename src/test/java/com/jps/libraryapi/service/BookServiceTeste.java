@@ -3,29 +3,53 @@ package com.jps.libraryapi.service;
 import com.jps.libraryapi.exception.BusinessException;
 import com.jps.libraryapi.model.entity.Book;
 import com.jps.libraryapi.model.repository.BookRepository;
+import com.jps.libraryapi.service.event.BookChangedEvent;
 import com.jps.libraryapi.service.impl.BookServiceImpl;
+import com.jps.libraryapi.service.isbn.KnownIsbns;
+import com.jps.libraryapi.service.search.BookQueryCache;
+import com.jps.libraryapi.service.search.BookSearchIndex;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
-import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @ExtendWith(SpringExtension.class)
 @ActiveProfiles("teste")
@@ -36,9 +60,11 @@ public class BookServiceTeste {
 	@MockBean
 	BookRepository repository;
 	
+	ApplicationEventPublisher publisher = Mockito.mock(ApplicationEventPublisher.class);
+	
 	@BeforeEach
 	public void setUp() {
-		this.service = new BookServiceImpl( repository );
+		this.service = new BookServiceImpl( repository, publisher, Optional.empty(), Optional.empty(), Optional.empty(), new NoOpCacheManager(), new SimpleMeterRegistry(), false );
 	} 
 	
 	@Test
@@ -46,9 +72,8 @@ public class BookServiceTeste {
 	public void saveBookTest() {
 		//cenario
 		Book book = createValidBook();
-		Mockito.when( repository.existsByIsbn(Mockito.anyString())).thenReturn(false);
 		
-		Mockito.when( repository.save(book) ).thenReturn(
+		Mockito.when( repository.saveAndFlush(book) ).thenReturn(
 							Book.builder().id(1l)
 							.isbn("123")
 							.author("Janaina")
@@ -59,10 +84,13 @@ public class BookServiceTeste {
 		Book savedBook = service.save(book);
 		
 		//verificacao
+		Mockito.verify(publisher).publishEvent(Mockito.any(BookChangedEvent.class));
 		assertThat(savedBook.getId()).isNotNull();
 		assertThat(savedBook.getIsbn()).isEqualTo("123");
 		assertThat(savedBook.getTitle()).isEqualTo("As aventuras");
 		assertThat(savedBook.getAuthor()).isEqualTo("Janaina");
+		// a unicidade fica com o índice único, sem consulta prévia
+		Mockito.verify(repository, Mockito.never()).existsByIsbn(Mockito.anyString());
 	}	
 
 	@Test
@@ -70,7 +98,7 @@ public class BookServiceTeste {
 	public void shouldNotSaveBookWitDupolicatedIsbnTest() {
 		//cenario
 		Book book = createValidBook();
-		Mockito.when( repository.existsByIsbn(Mockito.anyString())).thenReturn(true);
+		Mockito.when( repository.saveAndFlush(book) ).thenThrow(isbnViolation());
 		
 		//execucao
 		Throwable exception = Assertions.catchThrowable(() -> service.save(book));
@@ -80,7 +108,33 @@ public class BookServiceTeste {
 			.isInstanceOf(BusinessException.class)
 			.hasMessage("Isbn já cadastrado");
 		
-		Mockito.verify(repository, Mockito.never()).save(book);
+		Mockito.verify(publisher, Mockito.never()).publishEvent(Mockito.any(Object.class));
+	}
+	
+	@Test
+	@DisplayName("Não deve traduzir outras violações de integridade em erro de isbn")
+	public void shouldRethrowOtherIntegrityViolationsTest() {
+		Book book = createValidBook();
+		Mockito.when( repository.saveAndFlush(book) ).thenThrow(new DataIntegrityViolationException("NULL not allowed for column \"TITLE\""));
+		
+		Throwable exception = Assertions.catchThrowable(() -> service.save(book));
+		
+		assertThat(exception).isInstanceOf(DataIntegrityViolationException.class);
+	}
+	
+	@Test
+	@DisplayName("Deve consultar o isbn antes do insert no modo com checagem prévia")
+	public void shouldNotSaveBookWithDuplicatedIsbnPreCheckTest() {
+		service = new BookServiceImpl( repository, publisher, Optional.empty(), Optional.empty(), Optional.empty(), new NoOpCacheManager(), new SimpleMeterRegistry(), true );
+		Book book = createValidBook();
+		Mockito.when( repository.existsByIsbn(Mockito.anyString())).thenReturn(true);
+		
+		Throwable exception = Assertions.catchThrowable(() -> service.save(book));
+		
+		assertThat(exception)
+			.isInstanceOf(BusinessException.class)
+			.hasMessage("Isbn já cadastrado");
+		Mockito.verify(repository, Mockito.never()).saveAndFlush(book);
 	}
 	
 	@Test
@@ -117,34 +171,6 @@ public class BookServiceTeste {
 		
 	}
 	
-	@Test
-	@DisplayName("Deve deletar um livro.")
-	public void deleteBookTest() {
-		Long id = 1L;
-		
-		Book book = createValidBook();
-		book.setId(id);
-		
-		//execucao
-		assertDoesNotThrow(() -> service.delete(book));
-		
-		//verificação
-		Mockito.verify(repository, Mockito.times(1)).delete(book);
-		
-	}
-	
-	@Test
-	@DisplayName("Deve ocorrer erro ao tentar deletar um livro inexistente.")
-	public void deleteInvalidBookTest() {
-		Book book = new Book();
-		
-		assertThrows(IllegalArgumentException.class, () -> service.delete(book));
-		
-		//verificação
-		Mockito.verify(repository, Mockito.never()).delete(book);
-		
-	}
-	
 	@Test
 	@DisplayName("Deve atualizar um livro.")
 	public void updateBookTest() {
@@ -191,10 +217,8 @@ public class BookServiceTeste {
 		PageRequest pageRequest = PageRequest.of(0, 10);
 		List<Book> lista = Arrays.asList(book);
 				
-		Page<Book> page = new PageImpl<Book>(lista, pageRequest, 1);
-		
-		Mockito.when(repository.findAll(Mockito.any(Example.class), Mockito.any(PageRequest.class)))
-			.thenReturn(page);
+		Mockito.when(repository.findPage(Mockito.any(Example.class), Mockito.any(PageRequest.class)))
+			.thenReturn(lista);
 		
 		//execucao
 		Page<Book> result = service.find(book, pageRequest);
@@ -206,6 +230,308 @@ public class BookServiceTeste {
         assertThat(result.getPageable().getPageSize()).isEqualTo(10);
 	}
 	
+	@Test
+	@DisplayName("Deve salvar livros em lote rejeitando isbn duplicados.")
+	public void saveAllBooksTest() {
+		Book novo = createValidBook();
+		Book cadastrado = Book.builder().isbn("456").author("Artur").title("Outro").build();
+		Book repetido = createValidBook();
+		List<Book> books = Arrays.asList(novo, cadastrado, repetido);
+		
+		Mockito.when(repository.findExistingIsbns(Mockito.anyCollection()))
+			.thenReturn(new HashSet<>(Arrays.asList("456")));
+		
+		//execucao
+		List<BookBatchResult> results = service.saveAll(books);
+		
+		//verificacoes
+		assertThat(results).hasSize(3);
+		assertThat(results.get(0).isCreated()).isTrue();
+		assertThat(results.get(1).isCreated()).isFalse();
+		assertThat(results.get(1).getError()).isEqualTo("Isbn já cadastrado");
+		assertThat(results.get(2).isCreated()).isFalse();
+		Mockito.verify(repository, Mockito.times(1)).findExistingIsbns(Mockito.anyCollection());
+		Mockito.verify(repository).insertAll(Arrays.asList(novo));
+		Mockito.verify(repository, Mockito.never()).existsByIsbn(Mockito.anyString());
+	}
+	
+	@Test
+	@DisplayName("Deve filtrar livros pelo índice de busca quando ele estiver habilitado.")
+	public void findBookIndexedTest() {
+		BookSearchIndex index = Mockito.mock(BookSearchIndex.class);
+		service = new BookServiceImpl( repository, publisher, Optional.of(index), Optional.empty(), Optional.empty(), new NoOpCacheManager(), new SimpleMeterRegistry(), false );
+		
+		Book first = createValidBook();
+		first.setId(1l);
+		Book second = createValidBook();
+		second.setId(2l);
+		PageRequest pageRequest = PageRequest.of(0, 10);
+		
+		Mockito.when(index.supports(pageRequest)).thenReturn(true);
+		Mockito.when(index.search(first, pageRequest)).thenReturn(new PageImpl<>(Arrays.asList(2l, 1l), pageRequest, 2));
+		Mockito.when(repository.findAllProjectedById(Arrays.asList(2l, 1l))).thenReturn(Arrays.asList(first, second));
+		
+		//execucao
+		Page<Book> result = service.find(first, pageRequest);
+		
+		//verificacoes
+		assertThat(result.getTotalElements()).isEqualTo(2);
+		assertThat(result.getContent()).containsExactly(second, first);
+		Mockito.verify(repository, Mockito.never()).findAll(Mockito.any(Example.class), Mockito.any(PageRequest.class));
+	}
+	
+	@Test
+	@DisplayName("Deve buscar a página seguinte ao cursor sem consulta de contagem.")
+	public void findAfterTest() {
+		Book book = createValidBook();
+		List<Book> lista = Arrays.asList(book, createValidBook(), createValidBook());
+		
+		Mockito.when(repository.findAfter(Mockito.any(Example.class), Mockito.eq(10l), Mockito.eq(3)))
+			.thenReturn(lista);
+		
+		//execucao
+		Slice<Book> result = service.findAfter(book, 10l, 2);
+		
+		//verificacoes
+		assertThat(result.getContent()).hasSize(2);
+		assertThat(result.hasNext()).isTrue();
+		Mockito.verify(repository, Mockito.never()).count(Mockito.any(Example.class));
+	}
+	
+	@Test
+	@DisplayName("Deve compartilhar a consulta entre leituras simultâneas do mesmo livro.")
+	public void coalesceConcurrentGetByIdTest() throws Exception {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		service = new BookServiceImpl( repository, publisher, Optional.empty(), Optional.empty(), Optional.empty(), new NoOpCacheManager(), registry, false );
+		CountDownLatch release = new CountDownLatch(1);
+		Mockito.when( repository.findById(1l) ).thenAnswer(invocation -> {
+			release.await(5, TimeUnit.SECONDS);
+			return Optional.of(createValidBook());
+		});
+		
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<Optional<Book>>> results = new ArrayList<>();
+			for (int i = 0; i < 8; i++) {
+				results.add(executor.submit(() -> service.getById(1l)));
+			}
+			long deadline = System.currentTimeMillis() + 5000;
+			while( registry.get(BookServiceImpl.COALESCED).tag("method", "getById").functionCounter().count() < 7
+					&& System.currentTimeMillis() < deadline ) {
+				Thread.sleep(5);
+			}
+			release.countDown();
+			
+			for (Future<Optional<Book>> result : results) {
+				assertThat(result.get(5, TimeUnit.SECONDS)).isPresent();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		
+		Mockito.verify(repository, Mockito.times(1)).findById(1l);
+		assertThat(registry.get(BookServiceImpl.COALESCED).tag("method", "getById").functionCounter().count()).isEqualTo(7);
+	}
+	
+	@Test
+	@DisplayName("Deve buscar uma fatia sem contagem usando um livro a mais para saber se há próxima.")
+	@SuppressWarnings("unchecked")
+	public void findSliceTest() {
+		PageRequest pageRequest = PageRequest.of(1, 2);
+		Book first = createValidBook();
+		Mockito.when( repository.findPage(Mockito.any(Example.class), Mockito.eq(pageRequest), Mockito.eq(1)) )
+			.thenReturn(Arrays.asList(first, createValidBook(), createValidBook()))
+			.thenReturn(Arrays.asList(first));
+		
+		Slice<Book> full = service.findSlice(Book.builder().author("Janaina").build(), pageRequest);
+		Slice<Book> last = service.findSlice(Book.builder().author("Janaina").build(), pageRequest);
+		
+		assertThat(full.getContent()).hasSize(2);
+		assertThat(full.hasNext()).isTrue();
+		assertThat(last.getContent()).containsExactly(first);
+		assertThat(last.hasNext()).isFalse();
+		Mockito.verify(repository, Mockito.never()).count(Mockito.any(Example.class));
+	}
+	
+	@Test
+	@DisplayName("Deve buscar página e contagem pelo cache de consultas quando habilitado.")
+	@SuppressWarnings("unchecked")
+	public void findWithQueryCacheTest() {
+		BookQueryCache queryCache = new BookQueryCache(new SimpleMeterRegistry(), 1000, 1000, Duration.ofMinutes(1));
+		service = new BookServiceImpl( repository, publisher, Optional.empty(), Optional.of(queryCache), Optional.empty(), new NoOpCacheManager(), new SimpleMeterRegistry(), false );
+		PageRequest pageRequest = PageRequest.of(0, 1);
+		Mockito.when( repository.findPage(Mockito.any(Example.class), Mockito.eq(pageRequest)) ).thenReturn(Arrays.asList(createValidBook()));
+		Mockito.when( repository.count(Mockito.any(Example.class)) ).thenReturn(3l);
+		
+		service.find(Book.builder().author("Janaina").build(), pageRequest);
+		Page<Book> result = service.find(Book.builder().author("janaina").build(), pageRequest);
+		
+		assertThat(result.getContent()).hasSize(1);
+		assertThat(result.getTotalElements()).isEqualTo(3);
+		Mockito.verify(repository, Mockito.times(1)).findPage(Mockito.any(Example.class), Mockito.eq(pageRequest));
+		Mockito.verify(repository, Mockito.times(1)).count(Mockito.any(Example.class));
+		Mockito.verify(repository, Mockito.never()).findAll(Mockito.any(Example.class), Mockito.any(Pageable.class));
+	}
+	
+	@Test
+	@DisplayName("Não deve consultar o banco quando o filtro de ISBNs garante que o ISBN é novo.")
+	public void saveWithIsbnFilterTest() {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		KnownIsbns knownIsbns = new KnownIsbns(repository, Mockito.mock(PlatformTransactionManager.class), registry, 1000, 0.01);
+		Mockito.when( repository.streamIsbns() ).thenReturn(Stream.of("123"));
+		knownIsbns.rebuild();
+		service = new BookServiceImpl( repository, publisher, Optional.empty(), Optional.empty(), Optional.of(knownIsbns), new NoOpCacheManager(), registry, true );
+		Book book = createValidBook();
+		book.setIsbn("456");
+		Mockito.when( repository.saveAndFlush(book) ).thenReturn(book);
+		Mockito.when( repository.existsByIsbn("123") ).thenReturn(true);
+		
+		service.save(book);
+		Throwable exception = Assertions.catchThrowable(() -> service.save(createValidBook()));
+		
+		assertThat(exception).isInstanceOf(BusinessException.class);
+		Mockito.verify(repository, Mockito.never()).existsByIsbn("456");
+		Mockito.verify(repository, Mockito.times(1)).existsByIsbn("123");
+		assertThat(registry.get(KnownIsbns.CHECKS).tag("result", "absent").counter().count()).isEqualTo(1);
+		assertThat(knownIsbns.mightContain("456")).isTrue();
+	}
+	
+	@Test
+	@DisplayName("Deve obter vários livros por id em blocos mantendo a ordem pedida.")
+	@SuppressWarnings("unchecked")
+	public void getAllByIdTest() {
+		List<Long> ids = new ArrayList<>();
+		for (long id = 700; id >= 1; id--) {
+			ids.add(id);
+		}
+		ids.add(700l);
+		// o banco devolve em qualquer ordem e sem o id 5
+		Mockito.when( repository.findAllProjectedById(Mockito.anyCollection()) ).thenAnswer(invocation -> {
+			List<Book> books = new ArrayList<>();
+			for (Long id : (Iterable<Long>) invocation.getArgument(0)) {
+				if( id != 5l ) {
+					books.add(0, Book.builder().id(id).build());
+				}
+			}
+			return books;
+		});
+		
+		List<Book> books = service.getAllById(ids);
+		
+		assertThat(books).hasSize(699);
+		assertThat(books.get(0).getId()).isEqualTo(700l);
+		assertThat(books.get(698).getId()).isEqualTo(1l);
+		Mockito.verify(repository, Mockito.times(2)).findAllProjectedById(Mockito.argThat(chunk -> ((List<Long>) chunk).size() <= 500));
+	}
+	
+	@Test
+	@DisplayName("Deve deletar um livro por id sem carregá-lo.")
+	public void deleteByIdTest() {
+		Mockito.when( repository.removeById(1l) ).thenReturn(1);
+		Mockito.when( repository.removeById(2l) ).thenReturn(0);
+		
+		assertThat(service.deleteById(1l)).isTrue();
+		assertThat(service.deleteById(2l)).isFalse();
+		
+		Mockito.verify(repository, Mockito.never()).findById(Mockito.anyLong());
+		Mockito.verify(publisher, Mockito.times(1)).publishEvent(Mockito.any(BookChangedEvent.class));
+	}
+	
+	@Test
+	@DisplayName("Deve deletar livros em lote em blocos limitados.")
+	@SuppressWarnings("unchecked")
+	public void deleteAllByIdsInChunksTest() {
+		List<Long> ids = new ArrayList<>();
+		for (long id = 1; id <= 1200; id++) {
+			ids.add(id);
+		}
+		ids.add(1l);
+		// os ids acima de 1100 não existem
+		Mockito.when( repository.removeAllById(Mockito.anyCollection()) )
+			.thenAnswer(invocation -> ((Collection<Long>) invocation.getArgument(0)).stream()
+					.filter(id -> id <= 1100)
+					.collect(Collectors.toList()));
+		
+		int deleted = service.deleteAll(ids);
+		
+		assertThat(deleted).isEqualTo(1100);
+		Mockito.verify(repository, Mockito.times(3)).removeAllById(Mockito.argThat(chunk -> chunk.size() <= 500));
+		ArgumentCaptor<BookChangedEvent> events = ArgumentCaptor.forClass(BookChangedEvent.class);
+		Mockito.verify(publisher, Mockito.times(3)).publishEvent(events.capture());
+		assertThat(events.getAllValues()).flatExtracting(BookChangedEvent::getIds)
+			.hasSize(1100)
+			.allMatch(id -> id <= 1100);
+	}
+	
+	@Test
+	@DisplayName("Deve anunciar os blocos já removidos quando um bloco seguinte falhar.")
+	@SuppressWarnings("unchecked")
+	public void deleteAllByIdsChunkFailureTest() {
+		List<Long> ids = new ArrayList<>();
+		for (long id = 1; id <= 1000; id++) {
+			ids.add(id);
+		}
+		Mockito.when( repository.removeAllById(Mockito.anyCollection()) )
+			.thenAnswer(invocation -> new ArrayList<>((Collection<Long>) invocation.getArgument(0)))
+			.thenThrow(new DataIntegrityViolationException("falha"));
+		
+		assertThrows(DataIntegrityViolationException.class, () -> service.deleteAll(ids));
+		
+		Mockito.verify(publisher, Mockito.times(1)).publishEvent(Mockito.argThat((BookChangedEvent event) ->
+				event.getType() == BookChangedEvent.Type.DELETED && event.getIds().size() == 500));
+	}
+	
+	@Test
+	@DisplayName("Deve deletar por filtro percorrendo os ids em blocos.")
+	@SuppressWarnings("unchecked")
+	public void deleteAllByFilterTest() {
+		List<Long> firstChunk = new ArrayList<>();
+		for (long id = 1; id <= 500; id++) {
+			firstChunk.add(id);
+		}
+		Mockito.when( repository.findIdsAfter(Mockito.any(Example.class), Mockito.isNull(), Mockito.eq(500)) ).thenReturn(firstChunk);
+		Mockito.when( repository.findIdsAfter(Mockito.any(Example.class), Mockito.eq(500l), Mockito.eq(500)) ).thenReturn(Arrays.asList(501l, 502l));
+		Mockito.when( repository.removeAllById(Mockito.anyCollection()) )
+			.thenAnswer(invocation -> new ArrayList<>((Collection<Long>) invocation.getArgument(0)));
+		
+		int deleted = service.deleteAll(Book.builder().author("Janaina").build());
+		
+		assertThat(deleted).isEqualTo(502);
+		Mockito.verify(repository, Mockito.times(2)).findIdsAfter(Mockito.any(Example.class), Mockito.any(), Mockito.eq(500));
+	}
+	
+	@Test
+	@DisplayName("Deve alterar parcialmente um livro sem carregá-lo.")
+	public void patchBookTest() {
+		Book changes = Book.builder().title("Outro titulo").build();
+		Mockito.when( repository.patch(1l, 2l, changes) ).thenReturn(1);
+		
+		boolean patched = service.patch(1l, 2l, changes);
+		
+		assertThat(patched).isTrue();
+		Mockito.verify(repository, Mockito.never()).findById(Mockito.anyLong());
+		Mockito.verify(publisher).publishEvent(Mockito.argThat((BookChangedEvent event) ->
+				event.getType() == BookChangedEvent.Type.PATCHED && event.getIds().contains(1l)));
+	}
+	
+	@Test
+	@DisplayName("Deve diferenciar livro inexistente de versão desatualizada ao alterar parcialmente.")
+	public void patchMissingOrStaleBookTest() {
+		Book changes = Book.builder().title("Outro titulo").build();
+		Mockito.when( repository.patch(Mockito.anyLong(), Mockito.any(), Mockito.any(Book.class)) ).thenReturn(0);
+		Mockito.when( repository.existsById(1l) ).thenReturn(true);
+		
+		assertThat(service.patch(2l, 5l, changes)).isFalse();
+		assertThat(service.patch(1l, null, changes)).isFalse();
+		assertThrows(OptimisticLockingFailureException.class, () -> service.patch(1l, 5l, changes));
+		Mockito.verify(publisher, Mockito.never()).publishEvent(Mockito.any(Object.class));
+	}
+	
+	private DataIntegrityViolationException isbnViolation() {
+		return new DataIntegrityViolationException("could not execute statement",
+				new RuntimeException("Unique index or primary key violation: \"PUBLIC.UK_BOOK_ISBN_INDEX_1 ON PUBLIC.BOOK(ISBN)\""));
+	}
+	
 	private Book createValidBook() {
 		return Book.builder().isbn("123").author("Janaina").title("As aventuras").build();
 	}
@@ -0,0 +1,113 @@
+package com.jps.libraryapi.service.coalesce;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class SingleFlightTest {
+
+	static final int CALLERS = 16;
+	
+	SingleFlight<String, Integer> flight = new SingleFlight<>();
+	ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+	
+	@AfterEach
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+	
+	@Test
+	@DisplayName("Chamadas simultâneas com a mesma chave devem compartilhar uma única execução.")
+	public void coalesceConcurrentCallsTest() throws Exception {
+		AtomicInteger loads = new AtomicInteger();
+		CountDownLatch release = new CountDownLatch(1);
+		
+		List<Future<Integer>> results = submitAll(() -> flight.execute("livro-1", () -> {
+			loads.incrementAndGet();
+			await(release);
+			return 42;
+		}));
+		waitUntilAllJoined();
+		release.countDown();
+		
+		for (Future<Integer> result : results) {
+			assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo(42);
+		}
+		assertThat(loads.get()).isEqualTo(1);
+		assertThat(flight.coalesced()).isEqualTo(CALLERS - 1);
+		assertThat(flight.inFlight()).isZero();
+	}
+	
+	@Test
+	@DisplayName("Todos os chamadores devem receber a exceção da execução compartilhada.")
+	public void propagateFailureTest() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		
+		List<Future<Integer>> results = submitAll(() -> flight.execute("livro-1", () -> {
+			await(release);
+			throw new IllegalStateException("banco fora do ar");
+		}));
+		waitUntilAllJoined();
+		release.countDown();
+		
+		for (Future<Integer> result : results) {
+			ExecutionException e = assertThrows(ExecutionException.class,
+					() -> result.get(5, TimeUnit.SECONDS));
+			assertThat(e.getCause()).isInstanceOf(IllegalStateException.class).hasMessage("banco fora do ar");
+		}
+		// a falha não fica guardada: a próxima chamada executa de novo
+		assertThat(flight.execute("livro-1", () -> 7)).isEqualTo(7);
+	}
+	
+	@Test
+	@DisplayName("Chaves diferentes e chamadas em sequência não devem ser compartilhadas.")
+	public void differentKeysAndSequentialCallsTest() {
+		AtomicInteger loads = new AtomicInteger();
+		
+		flight.execute("livro-1", loads::incrementAndGet);
+		flight.execute("livro-1", loads::incrementAndGet);
+		flight.execute("livro-2", loads::incrementAndGet);
+		
+		assertThat(loads.get()).isEqualTo(3);
+		assertThat(flight.coalesced()).isZero();
+		assertThat(flight.calls()).isEqualTo(3);
+	}
+	
+	private List<Future<Integer>> submitAll(Callable<Integer> call) throws InterruptedException {
+		List<Future<Integer>> results = new ArrayList<>();
+		for (int i = 0; i < CALLERS; i++) {
+			results.add(executor.submit(call));
+		}
+		return results;
+	}
+	
+	private void waitUntilAllJoined() throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while( flight.coalesced() < CALLERS - 1 && System.currentTimeMillis() < deadline ) {
+			Thread.sleep(5);
+		}
+	}
+	
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+}
@@ -0,0 +1,51 @@
+package com.jps.libraryapi.service.isbn;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class IsbnBloomFilterTest {
+
+	static final int ISBNS = 100_000;
+	
+	@Test
+	@DisplayName("Deve encontrar todo ISBN incluído.")
+	public void noFalseNegativesTest() {
+		IsbnBloomFilter filter = new IsbnBloomFilter(ISBNS, 0.01);
+		for (int i = 0; i < ISBNS; i++) {
+			filter.add(isbn(i));
+		}
+		
+		for (int i = 0; i < ISBNS; i++) {
+			assertThat(filter.mightContain(isbn(i))).isTrue();
+		}
+		assertThat(filter.insertions()).isEqualTo(ISBNS);
+	}
+	
+	@Test
+	@DisplayName("Deve manter a taxa de falso positivo perto da configurada.")
+	public void falsePositiveRateTest() {
+		IsbnBloomFilter filter = new IsbnBloomFilter(ISBNS, 0.01);
+		for (int i = 0; i < ISBNS; i++) {
+			filter.add(isbn(i));
+		}
+		
+		int falsePositives = 0;
+		for (int i = ISBNS; i < ISBNS * 2; i++) {
+			if( filter.mightContain(isbn(i)) ) {
+				falsePositives++;
+			}
+		}
+		
+		assertThat(falsePositives / (double) ISBNS).isLessThan(0.02);
+		assertThat(filter.expectedFalsePositiveRate()).isBetween(0.005, 0.015);
+		// ~9,6 bits por ISBN para 1%
+		assertThat(filter.bitSize() / 8).isLessThan(ISBNS * 2);
+	}
+	
+	private static String isbn(int i) {
+		return String.format("978%010d", i);
+	}
+	
+}
@@ -0,0 +1,128 @@
+package com.jps.libraryapi.service.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import com.jps.libraryapi.model.entity.Book;
+import com.jps.libraryapi.service.event.BookChangedEvent;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class BookQueryCacheTest {
+
+	BookQueryCache cache;
+	SimpleMeterRegistry registry;
+	AtomicInteger contentQueries;
+	AtomicInteger countQueries;
+	
+	@BeforeEach
+	public void setUp() {
+		registry = new SimpleMeterRegistry();
+		cache = new BookQueryCache(registry, 50, 100, Duration.ofMinutes(5));
+		contentQueries = new AtomicInteger();
+		countQueries = new AtomicInteger();
+	}
+	
+	@Test
+	@DisplayName("Deve reaproveitar página e contagem para o mesmo filtro ignorando maiúsculas.")
+	public void cacheHitTest() {
+		Page<Book> first = find(Book.builder().author("Janaina").build(), PageRequest.of(0, 2));
+		Page<Book> second = find(Book.builder().author("JANAINA").build(), PageRequest.of(0, 2));
+		
+		assertThat(second.getContent()).isEqualTo(first.getContent());
+		assertThat(second.getTotalElements()).isEqualTo(10);
+		assertThat(contentQueries.get()).isEqualTo(1);
+		assertThat(countQueries.get()).isEqualTo(1);
+	}
+	
+	@Test
+	@DisplayName("Deve guardar a contagem separada das páginas do mesmo filtro.")
+	public void countSharedBetweenPagesTest() {
+		Book filter = Book.builder().title("aventuras").build();
+		
+		find(filter, PageRequest.of(0, 2));
+		find(filter, PageRequest.of(1, 2));
+		find(filter, PageRequest.of(1, 2, Sort.by("title")));
+		
+		assertThat(contentQueries.get()).isEqualTo(3);
+		assertThat(countQueries.get()).isEqualTo(1);
+	}
+	
+	@Test
+	@DisplayName("Deve descartar os resultados anteriores a qualquer alteração de livro.")
+	public void generationInvalidatesTest() {
+		Book filter = Book.builder().title("aventuras").build();
+		find(filter, PageRequest.of(0, 2));
+		
+		cache.onBookChanged(BookChangedEvent.deleted(Collections.singletonList(1l)));
+		find(filter, PageRequest.of(0, 2));
+		
+		assertThat(cache.generation()).isEqualTo(1);
+		assertThat(contentQueries.get()).isEqualTo(2);
+		assertThat(countQueries.get()).isEqualTo(2);
+	}
+	
+	@Test
+	@DisplayName("Não deve guardar resultado lido durante uma escrita na geração nova.")
+	public void writeDuringQueryTest() {
+		Book filter = Book.builder().title("aventuras").build();
+		
+		cache.find(filter, PageRequest.of(0, 2), () -> {
+			cache.onBookChanged(BookChangedEvent.deleted(Collections.singletonList(1l)));
+			return books(2);
+		}, () -> 10l);
+		find(filter, PageRequest.of(0, 2));
+		
+		assertThat(contentQueries.get()).isEqualTo(1);
+	}
+	
+	@Test
+	@DisplayName("Deve limitar a memória pela quantidade de livros guardados.")
+	public void boundedByBooksTest() throws InterruptedException {
+		for (int page = 0; page < 40; page++) {
+			find(Book.builder().title("aventuras").build(), PageRequest.of(page, 2));
+		}
+		
+		// a remoção do Caffeine roda em segundo plano
+		long deadline = System.currentTimeMillis() + 5000;
+		while( evictions() == 0 && System.currentTimeMillis() < deadline ) {
+			Thread.sleep(10);
+		}
+		assertThat(evictions()).isPositive();
+	}
+	
+	private double evictions() {
+		return registry.get("cache.evictions").tag("cache", BookQueryCache.PAGES).functionCounter().count();
+	}
+	
+	private Page<Book> find(Book filter, PageRequest pageRequest) {
+		return cache.find(filter, pageRequest, () -> {
+			contentQueries.incrementAndGet();
+			return books(pageRequest.getPageSize());
+		}, () -> {
+			countQueries.incrementAndGet();
+			return 10l;
+		});
+	}
+	
+	private static List<Book> books(int size) {
+		List<Book> books = new ArrayList<>();
+		for (long id = 1; id <= size; id++) {
+			books.add(Book.builder().id(id).title("As aventuras " + id).author("Janaina").isbn("00" + id).build());
+		}
+		return books;
+	}
+	
+}
@@ -0,0 +1,158 @@
+package com.jps.libraryapi.service.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import com.jps.libraryapi.model.entity.Book;
+
+public class BookTrigramIndexTest {
+
+	BookTrigramIndex index;
+	
+	@BeforeEach
+	public void setUp() {
+		index = new BookTrigramIndex();
+		index.put(Book.builder().id(1l).title("As aventuras").author("Janaina").isbn("123").build());
+		index.put(Book.builder().id(2l).title("Aventuras no mar").author("Artur").isbn("456").build());
+		index.put(Book.builder().id(3l).title("Maravilha").author("Janaina Santos").isbn("789").build());
+	}
+	
+	@Test
+	@DisplayName("Deve encontrar livros por trecho do título ignorando maiúsculas.")
+	public void searchContainingIgnoreCaseTest() {
+		Page<Long> result = index.search(Book.builder().title("AVENTURA").build(), PageRequest.of(0, 10));
+		
+		assertThat(result.getContent()).containsExactly(1l, 2l);
+		assertThat(result.getTotalElements()).isEqualTo(2);
+	}
+	
+	@Test
+	@DisplayName("Deve combinar os filtros de todos os campos informados.")
+	public void searchAllFieldsTest() {
+		Page<Long> result = index.search(Book.builder().title("a").author("janaina").build(), PageRequest.of(0, 10));
+		
+		assertThat(result.getContent()).containsExactly(1l, 3l);
+	}
+	
+	@Test
+	@DisplayName("Deve paginar e ordenar o resultado.")
+	public void searchPagedAndSortedTest() {
+		Page<Long> result = index.search(new Book(), PageRequest.of(1, 2, Sort.by("title")));
+		
+		assertThat(result.getContent()).containsExactly(3l);
+		assertThat(result.getTotalElements()).isEqualTo(3);
+		assertThat(index.supports(PageRequest.of(0, 10, Sort.by("editora")))).isFalse();
+	}
+	
+	@Test
+	@DisplayName("Deve refletir alterações e remoções de livros.")
+	public void putAndRemoveTest() {
+		index.put(Book.builder().id(1l).title("Outro titulo").author("Janaina").isbn("123").build());
+		index.remove(2l);
+		
+		assertThat(index.search(Book.builder().title("aventuras").build(), PageRequest.of(0, 10)).getContent()).isEmpty();
+		assertThat(index.search(Book.builder().title("outro").build(), PageRequest.of(0, 10)).getContent()).containsExactly(1l);
+		assertThat(index.size()).isEqualTo(2);
+	}
+	
+	@Test
+	@DisplayName("Deve aplicar só os campos alterados parcialmente.")
+	public void mergeTest() {
+		index.merge(Book.builder().id(1l).title("Outro titulo").build());
+		index.merge(Book.builder().id(9l).title("Inexistente").build());
+		
+		assertThat(index.search(Book.builder().title("outro").author("janaina").isbn("123").build(), PageRequest.of(0, 10)).getContent()).containsExactly(1l);
+		assertThat(index.size()).isEqualTo(3);
+	}
+	
+	@Test
+	@DisplayName("Deve ocupar memória pelo número de postagens, com muitos trigramas raros.")
+	public void postingFootprintTest() {
+		int books = 100_000;
+		Random random = new Random(42);
+		long postings = 0;
+		index.clear();
+		for (int i = 1; i <= books; i++) {
+			Book book = Book.builder().id((long) i)
+					.title(TITLES[random.nextInt(TITLES.length)] + " " + word(random))
+					.author(word(random) + " " + word(random))
+					.isbn(String.valueOf(9_780_000_000_000L + random.nextInt(1_000_000_000)))
+					.build();
+			postings += distinctTrigrams(book.getTitle()) + distinctTrigrams(book.getAuthor()) + distinctTrigrams(book.getIsbn());
+			index.put(book);
+		}
+		
+		// um BitSet por trigrama iria até o maior slot marcado: milhares de trigramas raros x 100 mil livros / 8
+		long footprint = index.postingFootprint();
+		assertThat(footprint).isLessThan(postings * 4 * 2);
+		assertThat(footprint / books).isLessThan(400);
+	}
+	
+	@Test
+	@DisplayName("Deve intersectar as listas de postagem como a busca por contém, com slots reaproveitados.")
+	public void searchMatchesContainsTest() {
+		Random random = new Random(7);
+		List<Book> books = new ArrayList<>();
+		index.clear();
+		for (long id = 1; id <= 2_000; id++) {
+			Book book = Book.builder().id(id).title(word(random) + " " + word(random)).author(word(random)).isbn(String.valueOf(id)).build();
+			index.put(book);
+			books.add(book);
+		}
+		for (long id = 1; id <= 2_000; id += 3) {
+			index.remove(id);
+		}
+		books.removeIf(book -> book.getId() % 3 == 1);
+		for (long id = 2_001; id <= 2_500; id++) {
+			Book book = Book.builder().id(id).title(word(random) + " " + word(random)).author(word(random)).isbn(String.valueOf(id)).build();
+			index.put(book);
+			books.add(book);
+		}
+		
+		for (int i = 0; i < 200; i++) {
+			String word = word(random);
+			String title = word.substring(0, 3 + random.nextInt(word.length() - 2));
+			List<Long> expected = books.stream()
+					.filter(book -> book.getTitle().contains(title))
+					.map(Book::getId)
+					.sorted()
+					.collect(Collectors.toList());
+			
+			Page<Long> result = index.search(Book.builder().title(title).build(), PageRequest.of(0, 5_000, Sort.by("id")));
+			
+			assertThat(result.getContent()).isEqualTo(expected);
+		}
+	}
+	
+	private static final String[] TITLES = { "As aventuras", "O misterio", "A volta", "Historia de", "Cronicas" };
+	
+	// palavra de letras sorteadas: os trigramas raros de nomes e títulos
+	private static String word(Random random) {
+		char[] letters = new char[4 + random.nextInt(6)];
+		for (int i = 0; i < letters.length; i++) {
+			letters[i] = (char) ('a' + random.nextInt(26));
+		}
+		return new String(letters);
+	}
+	
+	private static long distinctTrigrams(String value) {
+		return IntStream.rangeClosed(0, value.length() - 3)
+				.mapToObj(i -> value.toLowerCase(Locale.ROOT).substring(i, i + 3))
+				.distinct()
+				.count();
+	}
+	
+}